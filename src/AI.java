@@ -1,5 +1,7 @@
 import java.util.ArrayList;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public class AI {
     public static class RandomChoice implements MovePickerInterface {
@@ -8,5 +10,18 @@ public class AI {
         public Move selectMove(Set<Move> moves) {
             return Utils.selectRandom(new ArrayList<>(moves));
         }
+
+        /**
+         * Select one of the encoded legal moves of STATE at random using RANDOM, without building
+         * the set of legal moves. Intended for random-policy rollouts.
+         */
+        public int selectMove(State state, RandomGenerator random) {
+            return state.randomLegalMove(random);
+        }
+
+        /** Select one of the encoded legal moves of STATE at random. */
+        public int selectMove(State state) {
+            return selectMove(state, ThreadLocalRandom.current());
+        }
     }
 }
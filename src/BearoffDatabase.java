@@ -0,0 +1,315 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Exact results of one-sided bearoffs: for every way of placing up to maxPieces() pieces of one
+ * side on the points of its end zone, the probability distribution of the number of turns it
+ * takes to escape all of them, playing to minimize the expected number of turns. Any position in
+ * which both sides have all their pieces in their end zones is a pure race, decided by these
+ * distributions alone (see winProbability).
+ * <p>
+ * A position is indexed by the number of pieces at every distance from escaping, read as the
+ * digits of a number in base MAX_NUM_PIECES_PER_BOARD_POSITION + 1, the nearest point being the
+ * lowest digit. A move always lowers the index, so generate computes the positions in the order
+ * of their indices, each from positions computed before.
+ * <p>
+ * The distributions are stored in a file as MAX_TURNS unsigned 16-bit probabilities per index,
+ * which open maps into memory: it costs no time to load, and all JVMs reading the same file share
+ * its pages through the page cache of the operating system.
+ */
+public class BearoffDatabase {
+
+    /** Construct a database reading the mapped file contents BUFFER. */
+    private BearoffDatabase(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != FILE_MAGIC
+                || buffer.getInt(4) != MAX_TURNS) {
+            throw new BackgammonError("Not a bearoff database of this version.");
+        }
+        _maxPieces = buffer.getInt(8);
+        if (_maxPieces < 0 || _maxPieces > Structure.NUM_PIECES_PER_SIDE
+                || buffer.capacity() != HEADER_SIZE + NUM_INDICES * RECORD_SIZE) {
+            throw new BackgammonError("The bearoff database is damaged.");
+        }
+        _buffer = buffer;
+    }
+
+    /** Returns the database stored in FILE by generate, mapped into memory. */
+    public static BearoffDatabase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BearoffDatabase(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                                   channel.size()));
+        }
+    }
+
+    /**
+     * Returns the database in the standard file (see standardFile), or null if it has not been
+     * generated (see generateStandard). The file is looked for only once per JVM, whether or not
+     * it was there.
+     */
+    public static BearoffDatabase standard() throws IOException {
+        if (!_standardLoaded) {
+            loadStandard();
+        }
+        return _standard;
+    }
+
+    /** Make standard() look for the standard file again. */
+    static synchronized void resetStandard() {
+        _standardLoaded = false;
+        _standard = null;
+    }
+
+    /** Open the standard file, if there is one, unless it has been looked for already. */
+    private static synchronized void loadStandard() throws IOException {
+        if (!_standardLoaded) {
+            Path file = standardFile();
+            _standard = Files.exists(file) ? open(file) : null;
+            _standardLoaded = true;
+        }
+    }
+
+    /**
+     * Generate the standard file for all positions. This is the build step behind standard(): it
+     * takes several seconds and writes about 3 MB.
+     */
+    public static void generateStandard() throws IOException {
+        generate(standardFile(), Structure.NUM_PIECES_PER_SIDE);
+        resetStandard();
+    }
+
+    /**
+     * Returns the standard file, named by the system property backgammon.bearoff, by default
+     * bearoff.db in the working directory.
+     */
+    public static Path standardFile() {
+        return Path.of(System.getProperty(STANDARD_FILE_PROPERTY, STANDARD_FILE_NAME));
+    }
+
+    /** Returns the largest number of pieces of a position I hold. */
+    public int maxPieces() {
+        return _maxPieces;
+    }
+
+    /**
+     * Returns true iff I hold the position of SIDE on BOARD: all its pieces left are on points of
+     * its end zone, and there are at most maxPieces() of them.
+     */
+    public boolean covers(Board board, Side side) {
+        return board.allPiecesInEndZone(side) && !board.hasCapturedPiece(side)
+                && Structure.NUM_PIECES_PER_SIDE - board.numEscaped(side) <= _maxPieces;
+    }
+
+    /** Returns the probability that the position INDEX takes exactly TURNS turns to bear off. */
+    public double turnProbability(int index, int turns) {
+        if (turns < 0 || turns >= MAX_TURNS) {
+            return 0;
+        }
+        return _buffer.getChar(HEADER_SIZE + index * RECORD_SIZE + turns * Character.BYTES)
+                / PROBABILITY_SCALE;
+    }
+
+    /** Returns the expected number of turns the position INDEX takes to bear off. */
+    public double expectedTurns(int index) {
+        double expected = 0;
+        for (int turns = 1; turns < MAX_TURNS; turns++) {
+            expected += turns * turnProbability(index, turns);
+        }
+        return expected;
+    }
+
+    /**
+     * Returns the probability that SIDETOMOVE wins the race on BOARD, both sides' positions being
+     * covered, if it is at the start of its turn.
+     */
+    public double winProbability(Board board, Side sideToMove) {
+        int own = index(board, sideToMove);
+        int opponent = index(board, sideToMove.opponent());
+        /* The side to move wins if it needs no more turns than its opponent. */
+        double win = 0;
+        double opponentAtLeast = 1;
+        for (int turns = 0; turns < MAX_TURNS; turns++) {
+            win += turnProbability(own, turns) * opponentAtLeast;
+            opponentAtLeast -= turnProbability(opponent, turns);
+        }
+        return Math.min(1, Math.max(0, win));
+    }
+
+    /** Returns the index of the position of SIDE's pieces in its end zone on BOARD. */
+    public static int index(Board board, Side side) {
+        int index = 0;
+        for (int distance = END_ZONE_SIZE; distance >= 1; distance--) {
+            int point = side.isWhite() ? Structure.BOARD_SIZE - distance : distance - 1;
+            index = index * RADIX + Math.abs(board.get(BoardIndex.make(point)));
+        }
+        return index;
+    }
+
+    /**
+     * Compute the distributions of all positions of up to MAXPIECES pieces and store them in
+     * FILE, replacing it atomically.
+     */
+    public static void generate(Path file, int maxPieces) throws IOException {
+        if (maxPieces < 0 || maxPieces > Structure.NUM_PIECES_PER_SIDE) {
+            throw new BackgammonError("Cannot generate bearoffs of %d pieces.", maxPieces);
+        }
+        double[][] distributions = new double[NUM_INDICES][];
+        double[] expected = new double[NUM_INDICES];
+        int[] successors = new int[Dice.NUM_OUTCOMES];
+        PlayGenerator plays = new PlayGenerator();
+        for (int index = 0; index < NUM_INDICES; index++) {
+            int numPieces = numPieces(index);
+            if (numPieces > maxPieces) {
+                continue;
+            }
+            double[] distribution = new double[MAX_TURNS];
+            distributions[index] = distribution;
+            if (numPieces == 0) {
+                distribution[0] = 1;
+                continue;
+            }
+            State state = State.fromExtendedSetup(setup(index), 1, 2, Side.WHITE);
+            /* A roll leaving no legal move keeps the position as it is, for another turn. */
+            double stay = 0;
+            double moved = 1;
+            for (int outcome = 0; outcome < Dice.NUM_OUTCOMES; outcome++) {
+                state.setDice(Dice.outcomeFirst(outcome), Dice.outcomeSecond(outcome));
+                successors[outcome] = bestSuccessor(state, plays, expected);
+                double probability = Dice.outcomeProbability(outcome);
+                if (successors[outcome] == index) {
+                    stay += probability;
+                } else {
+                    moved += probability * expected[successors[outcome]];
+                }
+            }
+            expected[index] = moved / (1 - stay);
+            double total = 0;
+            for (int turns = 1; turns < MAX_TURNS - 1; turns++) {
+                distribution[turns] = stay * distribution[turns - 1];
+                for (int outcome = 0; outcome < Dice.NUM_OUTCOMES; outcome++) {
+                    if (successors[outcome] != index) {
+                        distribution[turns] += Dice.outcomeProbability(outcome)
+                                * distributions[successors[outcome]][turns - 1];
+                    }
+                }
+                total += distribution[turns];
+            }
+            /* The last entry holds all longer bearoffs, which are vanishingly rare. */
+            distribution[MAX_TURNS - 1] = Math.max(0, 1 - total);
+        }
+        write(file, maxPieces, distributions);
+    }
+
+    /**
+     * Returns the index of the position reached by the play of the white pieces of STATE that
+     * takes the fewest turns to bear off, given the EXPECTED turns of all lower indices.
+     */
+    private static int bestSuccessor(State state, PlayGenerator plays, double[] expected) {
+        int numPlays = plays.generate(state);
+        int best = -1;
+        for (int play = 0; play < numPlays; play++) {
+            plays.makePlay(state, play);
+            int successor = index(state.getBoard(), Side.WHITE);
+            plays.unmakePlay(state, play);
+            if (best < 0 || expected[successor] < expected[best]) {
+                best = successor;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns an extended setup with white's pieces placed as in the position INDEX, and black's
+     * pieces out of white's way in black's end zone.
+     */
+    static int[] setup(int index) {
+        int[] setup = new int[Structure.BOARD_SIZE + 4];
+        setup[Structure.WHITE_ESCAPE_INDEX] = Structure.NUM_PIECES_PER_SIDE - numPieces(index);
+        for (int distance = 1; distance <= END_ZONE_SIZE; distance++, index /= RADIX) {
+            setup[Structure.BOARD_SIZE - distance] = index % RADIX;
+        }
+        for (int point = 0, left = Structure.NUM_PIECES_PER_SIDE; left > 0; point++) {
+            int pieces = Math.min(left, Structure.MAX_NUM_PIECES_PER_BOARD_POSITION);
+            setup[point] = -pieces;
+            left -= pieces;
+        }
+        return setup;
+    }
+
+    /** Returns the number of pips the pieces of the position INDEX must travel to escape. */
+    static int pipCount(int index) {
+        int pips = 0;
+        for (int distance = 1; index > 0; distance++, index /= RADIX) {
+            pips += distance * (index % RADIX);
+        }
+        return pips;
+    }
+
+    /** Returns the number of pieces of the position INDEX. */
+    static int numPieces(int index) {
+        int numPieces = 0;
+        for (; index > 0; index /= RADIX) {
+            numPieces += index % RADIX;
+        }
+        return numPieces;
+    }
+
+    /** Store DISTRIBUTIONS, computed for up to MAXPIECES pieces, in FILE. */
+    private static void write(Path file, int maxPieces, double[][] distributions)
+            throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(FILE_MAGIC);
+            data.writeInt(MAX_TURNS);
+            data.writeInt(maxPieces);
+            data.writeInt(0);
+            for (double[] distribution : distributions) {
+                for (int turns = 0; turns < MAX_TURNS; turns++) {
+                    double probability = distribution == null ? 0 : distribution[turns];
+                    data.writeChar((int) Math.round(probability * PROBABILITY_SCALE));
+                }
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** The number of points of an end zone. */
+    static final int END_ZONE_SIZE = Structure.BOARD_SIZE / 4;
+    /** The base of the digits of an index. */
+    private static final int RADIX = Structure.MAX_NUM_PIECES_PER_BOARD_POSITION + 1;
+    /** The number of indices, including those of positions with too many pieces. */
+    static final int NUM_INDICES = (int) Math.pow(RADIX, END_ZONE_SIZE);
+    /** The number of turns a distribution covers, from zero on. */
+    static final int MAX_TURNS = 32;
+
+    /** The layout of a file. */
+    private static final int FILE_MAGIC = 0x42454152;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    private static final int RECORD_SIZE = MAX_TURNS * Character.BYTES;
+    /** The stored value of a probability of one. */
+    private static final double PROBABILITY_SCALE = 0xFFFF;
+
+    /** The system property naming the file of the standard database, and its default. */
+    private static final String STANDARD_FILE_PROPERTY = "backgammon.bearoff";
+    private static final String STANDARD_FILE_NAME = "bearoff.db";
+
+    /** The standard database, or null if there is no standard file. */
+    private static volatile BearoffDatabase _standard;
+
+    /** True iff the standard file has been looked for. */
+    private static volatile boolean _standardLoaded;
+
+    /** The largest number of pieces of a position I hold. */
+    private final int _maxPieces;
+    /** The mapped contents of my file. */
+    private final ByteBuffer _buffer;
+}
@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * An Evaluator that values races in which both sides have all their pieces in their end zones
+ * from a BearoffDatabase, and hands every other position to another evaluator. Races with few
+ * enough pieces are looked up in a TwoSidedBearoffDatabase, if there is one, which is exact
+ * where the one-sided database is a close approximation. Wrapping the evaluator of a search in
+ * a BearoffEvaluator makes the search play bearoffs perfectly, and costs one check of two
+ * counters per position that is not a bearoff. The default evaluator of the engine (see
+ * Evaluator.standard) does so with the standard databases.
+ */
+public class BearoffEvaluator implements Evaluator {
+
+    /**
+     * Construct an evaluator looking up bearoffs in DATABASE, and evaluating all other positions
+     * with FALLBACK.
+     */
+    public BearoffEvaluator(BearoffDatabase database, Evaluator fallback) {
+        this(database, null, fallback);
+    }
+
+    /**
+     * Construct an evaluator looking up bearoffs in TWOSIDED, or in DATABASE if TWOSIDED is null
+     * or does not hold them, and evaluating all other positions with FALLBACK.
+     */
+    public BearoffEvaluator(BearoffDatabase database, TwoSidedBearoffDatabase twoSided,
+                            Evaluator fallback) {
+        _database = database;
+        _twoSided = twoSided;
+        _fallback = fallback;
+    }
+
+    /**
+     * Returns an evaluator looking up bearoffs in the standard databases (see
+     * BearoffDatabase.standard and TwoSidedBearoffDatabase.standard), and evaluating all other
+     * positions with FALLBACK. Returns FALLBACK itself if neither has been generated.
+     */
+    public static Evaluator standard(Evaluator fallback) {
+        BearoffDatabase database;
+        TwoSidedBearoffDatabase twoSided;
+        try {
+            database = BearoffDatabase.standard();
+            twoSided = TwoSidedBearoffDatabase.standard();
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+        if (database == null && twoSided == null) {
+            return fallback;
+        }
+        return new BearoffEvaluator(database, twoSided, fallback);
+    }
+
+    /**
+     * Evaluates bearoffs as if the side to move were at the start of its turn, which they are
+     * at the leaves of a search.
+     */
+    @Override
+    public double evaluate(State state, Side side) {
+        if (state.gameOver()) {
+            return Evaluator.terminalValue(state, side);
+        }
+        Board board = state.getBoard();
+        if (!state.noContact()) {
+            return _fallback.evaluate(state, side);
+        }
+        Side sideToMove = state.getCurrentSide();
+        double win;
+        if (_twoSided != null && _twoSided.covers(board)) {
+            win = _twoSided.winProbability(board, sideToMove);
+        } else if (_database != null && _database.covers(board, Side.WHITE)
+                   && _database.covers(board, Side.BLACK)) {
+            win = _database.winProbability(board, sideToMove);
+        } else {
+            return _fallback.evaluate(state, side);
+        }
+        double value = 2 * win - 1;
+        return side == sideToMove ? value : -value;
+    }
+
+    /** The database of exact bearoff results, or null. */
+    private final BearoffDatabase _database;
+
+    /** The database of exact races of few pieces, or null. */
+    private final TwoSidedBearoffDatabase _twoSided;
+
+    /** Evaluates the positions that are not bearoffs. */
+    private final Evaluator _fallback;
+}
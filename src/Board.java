@@ -30,6 +30,12 @@ public class Board {
         this._numBlackCaptured = numBlackCaptured;
         this._numWhiteEscaped = numWhiteEscaped;
         this._numBlackEscaped = numBlackEscaped;
+        this._zobristKey = Zobrist.computeKey(this);
+        this._whitePipCount = BAR_PIP_COUNT * numWhiteCaptured;
+        this._blackPipCount = BAR_PIP_COUNT * numBlackCaptured;
+        for (int i = 0; i < Structure.BOARD_SIZE; i++) {
+            updateDerivedCounts(i, setup[i], 1);
+        }
     }
 
     /** Construct a Board instance from the default configuration (standard game of Backgammon). */
@@ -98,7 +104,41 @@ public class Board {
     /** Set the number of pieces at a given INDEX. Negative values indicate black pieces. */
     public void set(BoardIndex boardIndex, int val) {
         ensureValidBoardValue(val);
-        _positions[boardIndex.getIndex()] = val;
+        int index = boardIndex.getIndex();
+        _zobristKey ^= Zobrist.point(index, _positions[index]) ^ Zobrist.point(index, val);
+        updateDerivedCounts(index, _positions[index], -1);
+        updateDerivedCounts(index, val, 1);
+        _positions[index] = val;
+    }
+
+    /**
+     * Adds (if SIGN is 1) or removes (if SIGN is -1) the contribution of VAL pieces at board
+     * position INDEX to my occupancy, made point and blot masks, pip counts and end zone counters.
+     */
+    private void updateDerivedCounts(int index, int val, int sign) {
+        if (val > 0) {
+            _whitePipCount += sign * val * (Structure.BOARD_SIZE - index);
+            _whiteOccupancy ^= 1 << index;
+            if (val == 1) {
+                _whiteBlots ^= 1 << index;
+            } else {
+                _whiteMadePoints ^= 1 << index;
+            }
+            if (index < Structure.END_ZONE_START_INDEX_WHITE) {
+                _numWhiteOutsideEndZone += sign * val;
+            }
+        } else if (val < 0) {
+            _blackPipCount -= sign * val * (index + 1);
+            _blackOccupancy ^= 1 << index;
+            if (val == -1) {
+                _blackBlots ^= 1 << index;
+            } else {
+                _blackMadePoints ^= 1 << index;
+            }
+            if (index > Structure.END_ZONE_END_INDEX_BLACK) {
+                _numBlackOutsideEndZone -= sign * val;
+            }
+        }
     }
 
     /**
@@ -156,40 +196,84 @@ public class Board {
     }
 
     /**
-     * Returns an array containing Index instances corresponding to BOARD positions occupied by the
-     * player specified by SIDE in the range STARTINDEX (inclusive) to ENDINDEX (inclusive) in the
-     * _positions array. The given range must correspond to a range on the board.
+     * Return a list containing all board indices occupied by the player specified by SIDE, in
+     * increasing order. This allocates a new list, so move generation should iterate over the
+     * bits of occupancyMask instead.
      */
-    // TODO: This will presumably be slow. A better approach may be to store the occupied
-    //  positions of either side in an instance variable and update it every time we modify the
-    //  _positions array.
-    private List<BoardIndex> getOccupiedBoardIndicesInRange(Side side,
-                                                            BoardIndex startBoardIndex,
-                                                            BoardIndex endBoardIndex) {
-        if (startBoardIndex.getIndex() > endBoardIndex.getIndex()) {
-            throw new BackgammonError("Start index: %d is greater than the end index: %d.",
-                                      startBoardIndex.getIndex(),
-                                      endBoardIndex.getIndex());
+    public List<BoardIndex> occupiedBoardIndices(Side side) {
+        ArrayList<BoardIndex> occupiedBoardIndices = new ArrayList<>();
+        for (int mask = occupancyMask(side); mask != 0; mask &= mask - 1) {
+            occupiedBoardIndices.add(BoardIndex.make(Integer.numberOfTrailingZeros(mask)));
         }
-        ArrayList<BoardIndex> occupiedBoardIndicesArray = new ArrayList<>();
-        for (int i = startBoardIndex.getIndex(); i <= endBoardIndex.getIndex(); i++) {
-            BoardIndex boardIndex = BoardIndex.make(i);
-            int valAtIndex = get(boardIndex);
-            if (occupiedBy(side, boardIndex)) {
-                occupiedBoardIndicesArray.add(boardIndex);
-            }
+        return occupiedBoardIndices;
+    }
+
+    /**
+     * Returns a bitmask of the board positions occupied by SIDE, where bit i is set iff board
+     * index i holds at least one of SIDE's pieces.
+     */
+    public int occupancyMask(Side side) {
+        side.ensureDetermined();
+        return side.isWhite() ? _whiteOccupancy : _blackOccupancy;
+    }
+
+    /**
+     * Returns a bitmask of the points made by SIDE, where bit i is set iff board index i holds at
+     * least two of SIDE's pieces, which the opponent cannot land on.
+     */
+    public int madePointMask(Side side) {
+        side.ensureDetermined();
+        return side.isWhite() ? _whiteMadePoints : _blackMadePoints;
+    }
+
+    /**
+     * Returns a bitmask of the blots of SIDE, where bit i is set iff board index i holds exactly
+     * one of SIDE's pieces, which the opponent can capture.
+     */
+    public int blotMask(Side side) {
+        side.ensureDetermined();
+        return side.isWhite() ? _whiteBlots : _blackBlots;
+    }
+
+    /**
+     * Returns the pip count of SIDE: the total number of positions SIDE's pieces must still move
+     * to escape. A captured piece counts as BOARD_SIZE + 1 pips.
+     */
+    public int pipCount(Side side) {
+        side.ensureDetermined();
+        return side.isWhite() ? _whitePipCount : _blackPipCount;
+    }
+
+    /** Returns the number of SIDE's pieces on the board, but outside of SIDE's end zone. */
+    public int numOutsideEndZone(Side side) {
+        side.ensureDetermined();
+        return side.isWhite() ? _numWhiteOutsideEndZone : _numBlackOutsideEndZone;
+    }
+
+    /**
+     * Returns the board index of the piece of SIDE furthest away from escaping, ignoring captured
+     * pieces, or -1 if SIDE has no pieces on the board.
+     */
+    public int furthestBackIndex(Side side) {
+        int mask = occupancyMask(side);
+        if (mask == 0) {
+            return -1;
         }
-        return occupiedBoardIndicesArray;
+        return side.isWhite() ? Integer.numberOfTrailingZeros(mask)
+                : Integer.SIZE - 1 - Integer.numberOfLeadingZeros(mask);
     }
 
     /**
-     * Return an integer array containing all board indices occupied by the player specified by
-     * SIDE.
+     * Returns true iff no piece on me can meet a piece of the other side any more: no piece is
+     * captured, and every white piece has passed every black piece. What remains is a race.
      */
-    public List<BoardIndex> occupiedBoardIndices(Side side) {
-        return getOccupiedBoardIndicesInRange(side,
-                                              BoardIndex.make(0),
-                                              BoardIndex.make(Structure.BOARD_SIZE - 1));
+    public boolean noContact() {
+        if (_numWhiteCaptured > 0 || _numBlackCaptured > 0) {
+            return false;
+        }
+        int whiteBack = furthestBackIndex(Side.WHITE);
+        int blackBack = furthestBackIndex(Side.BLACK);
+        return whiteBack < 0 || blackBack < 0 || whiteBack > blackBack;
     }
 
     /**
@@ -229,12 +313,7 @@ public class Board {
     }
 
     public void incrementCaptured(Side side) {
-        side.ensureDetermined();
-        if (side.isWhite()) {
-            _numWhiteCaptured += 1;
-        } else {
-            _numBlackCaptured += 1;
-        }
+        setNumCaptured(side, numCaptured(side) + 1);
     }
 
     private void ensureWithinNumPiecesPerSide(int numPieces) {
@@ -249,9 +328,12 @@ public class Board {
     public void setNumCaptured(Side side, int numCaptured) {
         side.ensureDetermined();
         ensureWithinNumPiecesPerSide(numCaptured);
+        _zobristKey ^= Zobrist.captured(side, numCaptured(side)) ^ Zobrist.captured(side, numCaptured);
         if (side.isWhite()) {
+            _whitePipCount += BAR_PIP_COUNT * (numCaptured - _numWhiteCaptured);
             _numWhiteCaptured = numCaptured;
         } else {
+            _blackPipCount += BAR_PIP_COUNT * (numCaptured - _numBlackCaptured);
             _numBlackCaptured = numCaptured;
         }
     }
@@ -259,6 +341,7 @@ public class Board {
     public void setNumEscaped(Side side, int numEscaped) {
         side.ensureDetermined();
         ensureWithinNumPiecesPerSide(numEscaped);
+        _zobristKey ^= Zobrist.escaped(side, numEscaped(side)) ^ Zobrist.escaped(side, numEscaped);
         if (side.isWhite()) {
             _numWhiteEscaped = numEscaped;
         } else {
@@ -361,15 +444,15 @@ public class Board {
 
     /**
      * Returns true iff the player (designated by SIDE) has no pieces behind the position INDEX on
-     * the board.
+     * the board. White moves towards higher indices, so its pieces behind INDEX are at lower
+     * indices, and vice versa for black.
      **/
     public boolean isLastPieceOnBoard(BoardIndex boardIndex, Side side) {
-        for (BoardIndex occupiedBoardIndex : occupiedBoardIndices(side)) {
-            if (occupiedBoardIndex.getIndex() > boardIndex.getIndex()) {
-                return false;
-            }
+        int furthestBackIndex = furthestBackIndex(side);
+        if (side.isWhite()) {
+            return furthestBackIndex == -1 || furthestBackIndex >= boardIndex.getIndex();
         }
-        return true;
+        return furthestBackIndex <= boardIndex.getIndex();
     }
 
     /**
@@ -377,12 +460,7 @@ public class Board {
      * already "escaped" the board. The player that is checked for is given by the WHITE boolean.
      */
     public boolean allPiecesInEndZone(Side side) {
-        for (BoardIndex occupiedBoardIndex : occupiedBoardIndices(side)) {
-            if (!isEndZoneIndex(occupiedBoardIndex, side)) {
-                return false;
-            }
-        }
-        return true;
+        return numOutsideEndZone(side) == 0;
     }
 
     /**
@@ -391,11 +469,43 @@ public class Board {
      * captured), or the position is not fully occupied by pieces of the specified player.
      */
     boolean positionCanBeMovedToBy(BoardIndex index, Side side) {
-        if (full(index)) {
+        return positionCanBeMovedToBy(index.getIndex(), side);
+    }
+
+    /** Same as positionCanBeMovedToBy(BoardIndex, Side), for the raw board INDEX. */
+    boolean positionCanBeMovedToBy(int index, Side side) {
+        int numPiecesAtPos = _positions[index];
+        if (side.isWhite()) {
+            return numPiecesAtPos >= -1 && numPiecesAtPos < Structure.MAX_NUM_PIECES_PER_BOARD_POSITION;
+        }
+        return numPiecesAtPos <= 1 && numPiecesAtPos > -Structure.MAX_NUM_PIECES_PER_BOARD_POSITION;
+    }
+
+    /**
+     * Returns the 64-bit Zobrist key of my position, covering the pieces on every board position
+     * as well as the captured and escaped pieces of either side. It is updated incrementally
+     * whenever my position changes.
+     */
+    public long zobristKey() {
+        return _zobristKey;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Board otherBoard)) {
             return false;
         }
-        int numPiecesAtPos = get(index);
-        return side.isWhite() ? numPiecesAtPos >= -1 : numPiecesAtPos <= 1;
+        return _zobristKey == otherBoard._zobristKey
+                && Arrays.equals(_positions, otherBoard._positions)
+                && _numWhiteEscaped == otherBoard._numWhiteEscaped
+                && _numBlackEscaped == otherBoard._numBlackEscaped
+                && _numWhiteCaptured == otherBoard._numWhiteCaptured
+                && _numBlackCaptured == otherBoard._numBlackCaptured;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(_zobristKey);
     }
 
     /** Return a (semi) readable representation of the piece configuration. */
@@ -437,4 +547,31 @@ public class Board {
     private int _numWhiteCaptured;
     /** The number of black pieces that have been captured. */
     private int _numBlackCaptured;
+
+    /** The Zobrist key of my position. See zobristKey(). */
+    private long _zobristKey;
+
+    /** The board positions occupied by white. See occupancyMask(). */
+    private int _whiteOccupancy;
+    /** The board positions occupied by black. See occupancyMask(). */
+    private int _blackOccupancy;
+    /** The points made by white. See madePointMask(). */
+    private int _whiteMadePoints;
+    /** The points made by black. See madePointMask(). */
+    private int _blackMadePoints;
+    /** The blots of white. See blotMask(). */
+    private int _whiteBlots;
+    /** The blots of black. See blotMask(). */
+    private int _blackBlots;
+    /** The pip count of white. See pipCount(). */
+    private int _whitePipCount;
+    /** The pip count of black. See pipCount(). */
+    private int _blackPipCount;
+    /** The number of white pieces on the board outside of white's end zone. */
+    private int _numWhiteOutsideEndZone;
+    /** The number of black pieces on the board outside of black's end zone. */
+    private int _numBlackOutsideEndZone;
+
+    /** The number of pips a captured piece must travel to escape. */
+    private static final int BAR_PIP_COUNT = Structure.BOARD_SIZE + 1;
 }
\ No newline at end of file
@@ -10,6 +10,11 @@ public class BoardMove extends Move {
                              getRoll());
     }
 
+    @Override
+    int toPacked() {
+        return PackedMove.board(getStartIndex().getIndex(), getTargetIndex().getIndex(), getRoll());
+    }
+
     /**
      * A factory method returning a BoardMove instance.
      *
@@ -20,23 +25,42 @@ public class BoardMove extends Move {
      */
     static Move move(BoardIndex startIndex, BoardIndex endIndex, int roll) {
         Dice.ensureValidDieRoll(roll);
-        return BOARD_MOVES[startIndex.getIndex()][endIndex.getIndex()][roll - 1];
+        int distance = endIndex.getIndex() - startIndex.getIndex();
+        if (Math.abs(distance) != roll) {
+            throw new BackgammonError("A roll of %d cannot move a piece from %d to %d.", roll,
+                                      startIndex.getIndex(), endIndex.getIndex());
+        }
+        int direction = distance > 0 ? FORWARD : BACKWARD;
+        return BOARD_MOVES[startIndex.getIndex()][roll - 1][direction];
     }
 
+    /** The direction of a move towards higher board indices, as made by white. */
+    private static final int FORWARD = 0;
+    /** The direction of a move towards lower board indices, as made by black. */
+    private static final int BACKWARD = 1;
+
+    /**
+     * All possible board moves, indexed by start index, roll and direction. Entries of moves that
+     * would leave the board are null.
+     */
     static final BoardMove[][][] BOARD_MOVES =
-            new BoardMove[Structure.BOARD_SIZE][Structure.BOARD_SIZE][Dice.NUM_SIDES];
+            new BoardMove[Structure.BOARD_SIZE][Dice.NUM_SIDES][2];
 
     static {
         /* Generate all possible board moves. */
         for (int startIndex = 0; startIndex < Structure.BOARD_SIZE; startIndex++) {
-            for (int targetIndex = 0; targetIndex < Structure.BOARD_SIZE; targetIndex++) {
-                for (int roll = 1; roll <= Dice.NUM_SIDES; roll++) {
-                    if (startIndex != targetIndex) {
-                        BOARD_MOVES[startIndex][targetIndex][roll - 1]
-                                = new BoardMove(BoardIndex.make(startIndex),
-                                           BoardIndex.make(targetIndex),
-                                           roll);
-                    }
+            for (int roll = 1; roll <= Dice.NUM_SIDES; roll++) {
+                if (startIndex + roll < Structure.BOARD_SIZE) {
+                    BOARD_MOVES[startIndex][roll - 1][FORWARD] =
+                            new BoardMove(BoardIndex.make(startIndex),
+                                          BoardIndex.make(startIndex + roll),
+                                          roll);
+                }
+                if (startIndex - roll >= 0) {
+                    BOARD_MOVES[startIndex][roll - 1][BACKWARD] =
+                            new BoardMove(BoardIndex.make(startIndex),
+                                          BoardIndex.make(startIndex - roll),
+                                          roll);
                 }
             }
         }
@@ -0,0 +1,76 @@
+import java.util.Set;
+
+/**
+ * A MovePickerInterface that plays from an OpeningBook while the game is in it, and asks another
+ * picker for its moves once the game has left the book. A booked play is looked up at the start
+ * of a turn and handed out a move at a time, as long as the game stays in the positions the play
+ * leads through.
+ */
+public class BookPicker implements MovePickerInterface {
+
+    /** Construct a picker playing from BOOK, and otherwise as ENGINE. */
+    public BookPicker(OpeningBook book, MovePickerInterface engine) {
+        _book = book;
+        _engine = engine;
+    }
+
+    /** Returns the number of moves I have taken from my book. */
+    public long numBookMoves() {
+        return _numBookMoves;
+    }
+
+    /** Picking from the book needs the state of the game, so this asks my engine. */
+    @Override
+    public Move selectMove(Set<Move> moves) {
+        return _engine.selectMove(moves);
+    }
+
+    @Override
+    public Move selectMove(State state, Set<Move> moves) {
+        if (_entry >= 0 && (_nextMove >= _book.playLength(_entry)
+                || state.zobristKey() != _expectedKey)) {
+            _entry = -1;
+        }
+        if (_entry < 0) {
+            _entry = _book.lookup(state);
+            _nextMove = 0;
+        }
+        if (_entry >= 0) {
+            Move move = PackedMove.toMove(_book.packedMove(_entry, _nextMove));
+            if (moves.contains(move)) {
+                _nextMove += 1;
+                _numBookMoves += 1;
+                _expectedKey = keyAfter(state, move);
+                return move;
+            }
+            _entry = -1;
+        }
+        return _engine.selectMove(state, moves);
+    }
+
+    /** Returns the Zobrist key of STATE after MOVE, leaving STATE as it is. */
+    private static long keyAfter(State state, Move move) {
+        state.makeMove(move);
+        long key = state.zobristKey();
+        state.unmakeMove();
+        return key;
+    }
+
+    /** The book I play from. */
+    private final OpeningBook _book;
+
+    /** The picker I play with outside of my book. */
+    private final MovePickerInterface _engine;
+
+    /** The book entry whose play I am making, or -1. */
+    private int _entry = -1;
+
+    /** The index of the next move of the play of _entry. */
+    private int _nextMove;
+
+    /** The Zobrist key of the position the next move of the play of _entry expects. */
+    private long _expectedKey;
+
+    /** The number of moves taken from my book. */
+    private long _numBookMoves;
+}
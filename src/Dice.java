@@ -36,6 +36,12 @@ public class Dice {
         _second = generateRoll();
     }
 
+    /** Set the values of my dice to FIRST and SECOND, as if they had been rolled. */
+    void set(int first, int second) {
+        _first = first;
+        _second = second;
+    }
+
     /**
      * Generate a random dice roll. Assumes a NUM_SIDES sided dice, where every integer between 1
      * and NUM_SIDES has equal (uniform) probability of occurring.
@@ -62,11 +68,63 @@ public class Dice {
         }
     }
 
+    /**
+     * Returns the value of the first die of the distinct dice outcome OUTCOME, where outcomes are
+     * numbered from 0 to NUM_OUTCOMES - 1. Outcomes ignore the order of the dice, so the first
+     * die is never larger than the second.
+     */
+    public static int outcomeFirst(int outcome) {
+        return OUTCOME_FIRST[outcome];
+    }
+
+    /** Returns the value of the second die of the distinct dice outcome OUTCOME. */
+    public static int outcomeSecond(int outcome) {
+        return OUTCOME_SECOND[outcome];
+    }
+
+    /** Returns the distinct dice outcome of rolling FIRST and SECOND, in either order. */
+    public static int outcome(int first, int second) {
+        ensureValidDieRoll(first);
+        ensureValidDieRoll(second);
+        return OUTCOME_INDEX[Math.min(first, second)][Math.max(first, second)];
+    }
+
+    /**
+     * Returns the probability of rolling the distinct dice outcome OUTCOME: 1/36 for a Pasch and
+     * 2/36 for any other outcome, as its dice may come up in either order.
+     */
+    public static double outcomeProbability(int outcome) {
+        return OUTCOME_PROBABILITY[outcome];
+    }
+
     /** Return a readable representation of the dice rolled. */
     public String toString() {
         return "Roll: (" + _first + ", " + _second + ")";
     }
 
+    /** The number of distinct outcomes of rolling two dice, ignoring their order. */
+    public static final int NUM_OUTCOMES = NUM_SIDES * (NUM_SIDES + 1) / 2;
+
+    private static final int[] OUTCOME_FIRST = new int[NUM_OUTCOMES];
+    private static final int[] OUTCOME_SECOND = new int[NUM_OUTCOMES];
+    private static final double[] OUTCOME_PROBABILITY = new double[NUM_OUTCOMES];
+    /** The distinct outcome of every pair of dice, by the smaller and the larger die. */
+    private static final int[][] OUTCOME_INDEX = new int[NUM_SIDES + 1][NUM_SIDES + 1];
+
+    static {
+        int outcome = 0;
+        for (int first = 1; first <= NUM_SIDES; first++) {
+            for (int second = first; second <= NUM_SIDES; second++) {
+                OUTCOME_FIRST[outcome] = first;
+                OUTCOME_SECOND[outcome] = second;
+                OUTCOME_INDEX[first][second] = outcome;
+                OUTCOME_PROBABILITY[outcome] = (first == second ? 1.0 : 2.0)
+                        / (NUM_SIDES * NUM_SIDES);
+                outcome += 1;
+            }
+        }
+    }
+
     /** The value of my first roll. */
     private int _first;
 
@@ -10,6 +10,11 @@ public class EscapeMove extends Move {
                              getRoll());
     }
 
+    @Override
+    int toPacked() {
+        return PackedMove.escape(getStartIndex().getIndex(), getRoll(), getSide());
+    }
+
     private static int determineOffsetFromEscape(BoardIndex startIndex, Side side) {
         if (side.isWhite()) {
             return Structure.BOARD_SIZE - startIndex.getIndex();
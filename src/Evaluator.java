@@ -0,0 +1,44 @@
+/**
+ * Estimates how good a position is for one side, without searching ahead. Evaluators are the
+ * leaves of every search: a MovePickerInterface looking ahead calls one on every position it
+ * cannot afford to expand further.
+ */
+public interface Evaluator {
+    /** The value of a position won by the side it is evaluated for. */
+    double WIN = 1.0;
+    /** The value of a position lost by the side it is evaluated for. */
+    double LOSS = -1.0;
+
+    /**
+     * Returns the expected outcome of STATE for SIDE, between LOSS and WIN. STATE may be at any
+     * point of a turn, including after the game is over, and must not be modified.
+     */
+    double evaluate(State state, Side side);
+
+    /**
+     * Store in VALUES the value for SIDE of the position reached by every play of PLAYS, which
+     * have just been generated for STATE. STATE is modified while the plays are made, but
+     * returned to its original configuration. Evaluators that score a batch of positions faster
+     * than one at a time override this.
+     */
+    default void evaluatePlays(State state, PlayGenerator plays, Side side, double[] values) {
+        for (int play = 0; play < plays.numPlays(); play++) {
+            plays.makePlay(state, play);
+            values[play] = evaluate(state, side);
+            plays.unmakePlay(state, play);
+        }
+    }
+
+    /**
+     * Returns the evaluator pickers use by default: a HeuristicEvaluator, with bearoffs looked
+     * up in the standard databases where they have been generated (see BearoffEvaluator.standard).
+     */
+    static Evaluator standard() {
+        return BearoffEvaluator.standard(new HeuristicEvaluator());
+    }
+
+    /** Returns the value of STATE for SIDE if the game is over: WIN or LOSS. */
+    static double terminalValue(State state, Side side) {
+        return state.winner() == side ? WIN : LOSS;
+    }
+}
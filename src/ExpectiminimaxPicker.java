@@ -0,0 +1,687 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A PlayPicker searching a fixed number of plies ahead with expectiminimax. A ply is a single
+ * play of one side. The plays of the side to move are max nodes, those of its opponent min
+ * nodes, and between two plays a chance node averages over the 21 distinct dice outcomes,
+ * weighted by their probability. Positions at the search horizon are scored by an Evaluator.
+ * <p>
+ * A search of one ply picks the play leading to the best evaluated position. Every further ply
+ * multiplies the work by roughly 21 times the number of plays per roll, so two or three plies are
+ * what can be afforded in real time.
+ * <p>
+ * With a parallelism above one, the root plays and the outcomes of every chance node at least
+ * PARALLEL_MIN_PLIES plies above the horizon are searched as separate tasks of a ForkJoinPool.
+ * Every task searches its own State, rebuilt from a PositionSnapshot, so the only thing shared
+ * between threads is the Evaluator, which must then be safe for concurrent use. The values of
+ * the children of a node are always combined in the same order, so the selected play and its
+ * value do not depend on the parallelism.
+ * <p>
+ * With pruning enabled, chance nodes are searched with Star1 and Star2 (see Ballard, "The
+ * *-minimax search procedure for trees containing chance nodes"). Since every value lies between
+ * Evaluator.LOSS and Evaluator.WIN, the outcomes searched so far bound the value of a chance node
+ * and cut off the remaining outcomes as soon as it cannot matter to the node above. Star2 first
+ * probes a single play per outcome to tighten these bounds. Pruning never changes the selected
+ * play or its value, only the number of nodes searched. Chance nodes that are searched in
+ * parallel give up Star1 and Star2 for their own outcomes.
+ * <p>
+ * With a TimeBudget, the search deepens iteratively, one ply at a time up to its number of plies,
+ * until the deadline of the move. Every node checks the deadline, and a search that passes it is
+ * abandoned at once. The root plays of every iteration are searched best first, so that when the
+ * deadline falls within an iteration, the plays it completed can still improve on the choice of
+ * the one before. A SearchReport of every search is kept (see lastReport).
+ * <p>
+ * The plays of a node one ply above the horizon are scored in a single batch (see
+ * Evaluator.evaluatePlays), so that evaluators with a batched path get their full throughput.
+ */
+public class ExpectiminimaxPicker extends PlayPicker {
+
+    /**
+     * Construct a single-threaded picker searching PLIES plies ahead, scoring with the default
+     * evaluator (see Evaluator.standard).
+     */
+    public ExpectiminimaxPicker(int plies) {
+        this(Evaluator.standard(), plies);
+    }
+
+    /** Construct a single-threaded picker searching PLIES plies ahead, scoring with EVALUATOR. */
+    public ExpectiminimaxPicker(Evaluator evaluator, int plies) {
+        this(evaluator, plies, 1);
+    }
+
+    /**
+     * Construct a picker searching PLIES plies ahead, scoring positions with EVALUATOR, using up
+     * to PARALLELISM threads.
+     */
+    public ExpectiminimaxPicker(Evaluator evaluator, int plies, int parallelism) {
+        if (plies < 1) {
+            throw new BackgammonError("An expectiminimax search needs at least one ply.");
+        }
+        if (parallelism < 1) {
+            throw new BackgammonError("The parallelism of a search must be at least one.");
+        }
+        _evaluator = evaluator;
+        _plies = plies;
+        _pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /** Returns the number of plies I search ahead, at most when I have a time budget. */
+    public int plies() {
+        return _plies;
+    }
+
+    /** Returns the number of threads I search with. */
+    public int parallelism() {
+        return _pool == null ? 1 : _pool.getParallelism();
+    }
+
+    /** Returns the number of positions evaluated since I was created. */
+    public long numEvaluations() {
+        return _numEvaluations.sum();
+    }
+
+    /**
+     * Cache the values of the chance nodes I search in TABLE, which may be shared with other
+     * searches and threads, or stop caching if TABLE is null. With a table, a value stored by a
+     * deeper search may stand in for a shallower one, so the selected play can depend on what
+     * earlier searches left in TABLE.
+     */
+    public void setTranspositionTable(TranspositionTable table) {
+        _table = table;
+    }
+
+    /** Search chance nodes with Star1 and Star2 pruning iff PRUNING. Off by default. */
+    public void setPruning(boolean pruning) {
+        _pruning = pruning;
+    }
+
+    /** Returns the number of chance and play nodes searched since I was created. */
+    public long numNodes() {
+        return _numNodes.sum();
+    }
+
+    /** Returns the number of nodes whose search was cut short since I was created. */
+    public long numCutoffs() {
+        return _numCutoffs.sum();
+    }
+
+    /**
+     * Limit my searches to the time of BUDGET, deepening them iteratively, or search the full
+     * number of plies every time if BUDGET is null. The time I take is charged to BUDGET.
+     */
+    public void setTimeBudget(TimeBudget budget) {
+        _budget = budget;
+    }
+
+    /** Returns the report of my last search, or null if I have not searched yet. */
+    public SearchReport lastReport() {
+        return _lastReport;
+    }
+
+    /** Returns the value, for the side that made it, of the play I selected last. */
+    public double lastValue() {
+        return _lastValue;
+    }
+
+    /**
+     * Returns the expected value for SIDE of STATE, which is at the start of a turn whose dice
+     * are yet to be rolled, searching PLIES plies ahead, at most plies(). Ignores my time budget.
+     * STATE is left as it was.
+     */
+    public double chanceValue(State state, Side side, int plies) {
+        if (plies < 0 || plies > _plies) {
+            throw new BackgammonError("Cannot search %d plies ahead.", plies);
+        }
+        if (_pool != null) {
+            return _pool.invoke(new ChanceTask(state.snapshot(), plies, side, NO_DEADLINE));
+        }
+        /* The search sets the dice of the state it searches, so it searches a copy. */
+        return new Searcher(state.snapshot().toState(), side, NO_DEADLINE)
+                .chanceValue(plies, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    @Override
+    protected int selectPlay(State state, PlayGenerator plays) {
+        long start = System.nanoTime();
+        long startNodes = numNodes();
+        TimeBudget budget = _budget;
+        long deadline = budget == null ? NO_DEADLINE : budget.deadline(start);
+        Side rootSide = state.getCurrentSide();
+        if (_table != null) {
+            _table.newSearch();
+        }
+        int numPlays = plays.numPlays();
+        double[] values = new double[numPlays];
+        int[] order = new int[numPlays];
+        boolean[] completed = new boolean[numPlays];
+        int bestPlay = 0;
+        double bestValue = Double.NaN;
+        int depth = 0;
+        boolean timedOut = false;
+        for (int plies = budget == null ? _plies : 1; plies <= _plies && !timedOut; plies++) {
+            /* The best play so far goes first, the others in their usual order. */
+            order[0] = bestPlay;
+            for (int play = 0, i = 1; play < numPlays; play++) {
+                if (play != bestPlay) {
+                    order[i++] = play;
+                }
+            }
+            int numCompleted = searchRoot(state, plays, plies, order, rootSide, deadline, values,
+                                          completed);
+            timedOut = numCompleted < numPlays;
+            /* The plays completed can only be compared with the best play so far if it is one
+            of them. */
+            if (completed[0]) {
+                bestPlay = order[0];
+                for (int i = 1; i < numPlays; i++) {
+                    if (completed[i] && values[order[i]] > values[bestPlay]) {
+                        bestPlay = order[i];
+                    }
+                }
+                bestValue = values[bestPlay];
+            }
+            if (!timedOut) {
+                depth = plies;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (budget != null) {
+            budget.charge(elapsed);
+        }
+        _lastValue = bestValue;
+        _lastReport = new SearchReport(depth, numNodes() - startNodes, elapsed, timedOut,
+                                       bestValue);
+        return bestPlay;
+    }
+
+    /**
+     * Search the plays of STATE in ORDER PLIES plies deep for ROOTSIDE, until DEADLINE. The value
+     * of every play P is stored in VALUES[P], and COMPLETED[I] is set iff the search of ORDER[I]
+     * completed. Returns the number of plays completed, leaving STATE as it was either way.
+     */
+    private int searchRoot(State state, PlayGenerator plays, int plies, int[] order,
+                           Side rootSide, long deadline, double[] values, boolean[] completed) {
+        Arrays.fill(completed, false);
+        if (plies == 1) {
+            /* Always completed, so that a play is ready however close the deadline. */
+            _numEvaluations.add(order.length);
+            _evaluator.evaluatePlays(state, plays, rootSide, values);
+            Arrays.fill(completed, true);
+            return order.length;
+        }
+        if (_pool == null) {
+            /* When pruning, plays that cannot beat the best play so far only get an upper
+            bound. */
+            Searcher searcher = new Searcher(state, rootSide, deadline);
+            int numUndoable = state.numUndoableMoves();
+            double best = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < order.length; i++) {
+                int play = order[i];
+                plays.makePlay(state, play);
+                try {
+                    values[play] = searcher.chanceValue(plies - 1,
+                                                        _pruning ? best : Double.NEGATIVE_INFINITY,
+                                                        Double.POSITIVE_INFINITY);
+                } catch (SearchAborted excp) {
+                    while (state.numUndoableMoves() > numUndoable) {
+                        state.unmakeMove();
+                    }
+                    return i;
+                }
+                plays.unmakePlay(state, play);
+                completed[i] = true;
+                best = Math.max(best, values[play]);
+            }
+            return order.length;
+        }
+        List<ForkJoinTask<Double>> tasks = new ArrayList<>(order.length);
+        for (int play : order) {
+            plays.makePlay(state, play);
+            tasks.add(new ChanceTask(state.snapshot(), plies - 1, rootSide, deadline));
+            plays.unmakePlay(state, play);
+        }
+        double[] results = new double[order.length];
+        _pool.invoke(new JoinTask(tasks, deadline, results, completed));
+        int numCompleted = 0;
+        for (int i = 0; i < order.length; i++) {
+            if (completed[i]) {
+                values[order[i]] = results[i];
+                numCompleted += 1;
+            }
+        }
+        return numCompleted;
+    }
+
+    /** Returns true iff DEADLINE, a value of System.nanoTime() or NO_DEADLINE, has passed. */
+    private static boolean pastDeadline(long deadline) {
+        return deadline != NO_DEADLINE && System.nanoTime() - deadline > 0;
+    }
+
+    /**
+     * Searches a State confined to a single thread, with its own play generators. The searched
+     * state is always returned to its original configuration.
+     */
+    private final class Searcher {
+
+        /** Construct a searcher of STATE for ROOTSIDE, giving up once DEADLINE has passed. */
+        Searcher(State state, Side rootSide, long deadline) {
+            _state = state;
+            _rootSide = rootSide;
+            _deadline = deadline;
+            _plays = new PlayGenerator[_plies + 1];
+            _lowerBounds = new double[_plies + 1][Dice.NUM_OUTCOMES];
+            _upperBounds = new double[_plies + 1][Dice.NUM_OUTCOMES];
+        }
+
+        /**
+         * Returns the expected value for the root side of my state, which is at the start of a
+         * turn whose dice are yet to be rolled, searching PLIES more plies. The result is exact if
+         * it lies strictly between ALPHA and BETA. Otherwise, it may only be an upper bound of the
+         * value if at most ALPHA, or a lower bound if at least BETA.
+         */
+        double chanceValue(int plies, double alpha, double beta) {
+            if (pastDeadline(_deadline)) {
+                throw ABORTED;
+            }
+            if (plies == 0 || _state.gameOver()) {
+                _numEvaluations.increment();
+                return _evaluator.evaluate(_state, _rootSide);
+            }
+            _numNodes.increment();
+            TranspositionTable table = _table;
+            long key = 0;
+            if (table != null) {
+                key = _state.zobristKey() ^ (_rootSide == Side.BLACK ? BLACK_ROOT_KEY : 0);
+                double cached = table.probe(key, plies);
+                if (!Double.isNaN(cached)) {
+                    return cached;
+                }
+            }
+            double value;
+            if (_pool != null && plies >= PARALLEL_MIN_PLIES) {
+                value = forkOutcomes(plies);
+            } else if (_pruning) {
+                value = prunedChanceValue(plies, alpha, beta);
+            } else {
+                value = 0;
+                for (int outcome = 0; outcome < Dice.NUM_OUTCOMES; outcome++) {
+                    value += Dice.outcomeProbability(outcome)
+                            * outcomeValue(outcome, plies, Double.NEGATIVE_INFINITY,
+                                           Double.POSITIVE_INFINITY);
+                }
+            }
+            if (table != null && alpha < value && value < beta) {
+                /* Bounds are not worth storing, as they depend on the window. */
+                table.store(key, plies, value);
+            }
+            return value;
+        }
+
+        /**
+         * Returns the value of my state as chanceValue does, cutting off the remaining outcomes
+         * as soon as the value is known to lie outside of ALPHA and BETA.
+         */
+        private double prunedChanceValue(int plies, double alpha, double beta) {
+            double[] lower = _lowerBounds[plies];
+            double[] upper = _upperBounds[plies];
+            Arrays.fill(lower, Evaluator.LOSS);
+            Arrays.fill(upper, Evaluator.WIN);
+            double lowerSum = Evaluator.LOSS;
+            double upperSum = Evaluator.WIN;
+
+            /* Star2: the value of any play of an outcome bounds the value of the outcome from
+            below if the side to move is the root side, and from above otherwise. Probing is
+            pointless if the window leaves no room for the corresponding cutoff. */
+            boolean maximizing = _state.getCurrentSide() == _rootSide;
+            boolean probe = maximizing ? beta < Evaluator.WIN : alpha > Evaluator.LOSS;
+            PlayGenerator plays = generator(plies);
+            for (int outcome = 0; probe && outcome < Dice.NUM_OUTCOMES; outcome++) {
+                if (lowerSum >= beta || upperSum <= alpha) {
+                    _numCutoffs.increment();
+                    return lowerSum >= beta ? lowerSum : upperSum;
+                }
+                double probability = Dice.outcomeProbability(outcome);
+                _state.setDice(Dice.outcomeFirst(outcome), Dice.outcomeSecond(outcome));
+                plays.generate(_state);
+                plays.makePlay(_state, 0);
+                if (maximizing) {
+                    double others = lowerSum - probability * lower[outcome];
+                    double probeBeta = (beta - others) / probability;
+                    double bound = chanceValue(plies - 1, Evaluator.LOSS, probeBeta);
+                    plays.unmakePlay(_state, 0);
+                    if (bound >= probeBeta) {
+                        _numCutoffs.increment();
+                        return others + probability * bound;
+                    }
+                    lower[outcome] = Math.max(bound, Evaluator.LOSS);
+                    lowerSum = others + probability * lower[outcome];
+                } else {
+                    double others = upperSum - probability * upper[outcome];
+                    double probeAlpha = (alpha - others) / probability;
+                    double bound = chanceValue(plies - 1, probeAlpha, Evaluator.WIN);
+                    plays.unmakePlay(_state, 0);
+                    if (bound <= probeAlpha) {
+                        _numCutoffs.increment();
+                        return others + probability * bound;
+                    }
+                    upper[outcome] = Math.min(bound, Evaluator.WIN);
+                    upperSum = others + probability * upper[outcome];
+                }
+            }
+
+            /* Star1: search the outcomes one by one, bounding the unsearched ones by the bounds
+            found so far. */
+            double sum = 0;
+            for (int outcome = 0; outcome < Dice.NUM_OUTCOMES; outcome++) {
+                if (sum + lowerSum >= beta || sum + upperSum <= alpha) {
+                    _numCutoffs.increment();
+                    return sum + lowerSum >= beta ? sum + lowerSum : sum + upperSum;
+                }
+                double probability = Dice.outcomeProbability(outcome);
+                lowerSum -= probability * lower[outcome];
+                upperSum -= probability * upper[outcome];
+                double childAlpha = (alpha - sum - upperSum) / probability;
+                double childBeta = (beta - sum - lowerSum) / probability;
+                double value = outcomeValue(outcome, plies, childAlpha, childBeta);
+                if (value <= childAlpha) {
+                    _numCutoffs.increment();
+                    return sum + probability * value + upperSum;
+                }
+                if (value >= childBeta) {
+                    _numCutoffs.increment();
+                    return sum + probability * value + lowerSum;
+                }
+                sum += probability * value;
+            }
+            return sum;
+        }
+
+        /**
+         * Returns the value for the root side of my state after rolling the dice OUTCOME,
+         * searching PLIES more plies within the window ALPHA to BETA (see chanceValue).
+         */
+        double outcomeValue(int outcome, int plies, double alpha, double beta) {
+            _state.setDice(Dice.outcomeFirst(outcome), Dice.outcomeSecond(outcome));
+            return playValue(plies, alpha, beta);
+        }
+
+        /**
+         * Returns the value for the root side of the best play of the active player of my state,
+         * whose dice have been rolled, searching PLIES more plies within the window ALPHA to BETA
+         * (see chanceValue).
+         */
+        double playValue(int plies, double alpha, double beta) {
+            if (pastDeadline(_deadline)) {
+                throw ABORTED;
+            }
+            _numNodes.increment();
+            PlayGenerator plays = generator(plies);
+            int numPlays = plays.generate(_state);
+            boolean maximizing = _state.getCurrentSide() == _rootSide;
+            if (plies == 1) {
+                return batchedPlayValue(plays, numPlays, maximizing);
+            }
+            double best = maximizing ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            for (int play = 0; play < numPlays; play++) {
+                plays.makePlay(_state, play);
+                double value;
+                if (maximizing) {
+                    value = chanceValue(plies - 1, Math.max(alpha, best), beta);
+                    best = Math.max(best, value);
+                } else {
+                    value = chanceValue(plies - 1, alpha, Math.min(beta, best));
+                    best = Math.min(best, value);
+                }
+                plays.unmakePlay(_state, play);
+                if (maximizing ? best >= beta : best <= alpha) {
+                    _numCutoffs.increment();
+                    break;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Returns the value for the root side of the best of the NUMPLAYS plays of PLAYS, which
+         * reach the horizon, scoring all of them in one batch (see Evaluator.evaluatePlays).
+         * The best play is the one with the highest value iff MAXIMIZING, else the lowest.
+         */
+        private double batchedPlayValue(PlayGenerator plays, int numPlays, boolean maximizing) {
+            if (_leafValues.length < numPlays) {
+                _leafValues = new double[Math.max(numPlays, 2 * _leafValues.length)];
+            }
+            _numEvaluations.add(numPlays);
+            _evaluator.evaluatePlays(_state, plays, _rootSide, _leafValues);
+            double best = maximizing ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            for (int play = 0; play < numPlays; play++) {
+                best = maximizing ? Math.max(best, _leafValues[play])
+                        : Math.min(best, _leafValues[play]);
+            }
+            return best;
+        }
+
+        /** Returns the play generator of the search level PLIES plies above the horizon. */
+        private PlayGenerator generator(int plies) {
+            if (_plays[plies] == null) {
+                _plays[plies] = new PlayGenerator();
+            }
+            return _plays[plies];
+        }
+
+        /**
+         * Search every dice outcome of my state as a separate task, and return their weighted
+         * average, combined in the same order as by a sequential search.
+         */
+        private double forkOutcomes(int plies) {
+            PositionSnapshot snapshot = _state.snapshot();
+            List<ForkJoinTask<Double>> tasks = new ArrayList<>(Dice.NUM_OUTCOMES);
+            for (int outcome = 0; outcome < Dice.NUM_OUTCOMES; outcome++) {
+                tasks.add(new OutcomeTask(snapshot, outcome, plies, _rootSide, _deadline));
+            }
+            ForkJoinTask.invokeAll(tasks);
+            double value = 0;
+            for (int outcome = 0; outcome < Dice.NUM_OUTCOMES; outcome++) {
+                value += Dice.outcomeProbability(outcome) * tasks.get(outcome).join();
+            }
+            return value;
+        }
+
+        /** The state searched. */
+        private final State _state;
+
+        /** The side searched for. */
+        private final Side _rootSide;
+
+        /** The deadline of the search, or NO_DEADLINE. */
+        private final long _deadline;
+
+        /**
+         * A play generator for every number of plies left to search, created on first use, as
+         * the plays of every level of the search must survive the searches below them.
+         */
+        private final PlayGenerator[] _plays;
+
+        /** For every search level, bounds of the values of the outcomes of its chance node. */
+        private final double[][] _lowerBounds;
+        private final double[][] _upperBounds;
+
+        /** The values of the plays of a batch, grown as needed. */
+        private double[] _leafValues = new double[INITIAL_BATCH_SIZE];
+    }
+
+    /** Computes the chance value of a position, on a private copy of it. */
+    private final class ChanceTask extends RecursiveTask<Double> {
+
+        /**
+         * Construct a task computing the chance value of SNAPSHOT for ROOTSIDE, searching PLIES
+         * plies until DEADLINE.
+         */
+        ChanceTask(PositionSnapshot snapshot, int plies, Side rootSide, long deadline) {
+            _snapshot = snapshot;
+            _plies = plies;
+            _rootSide = rootSide;
+            _deadline = deadline;
+        }
+
+        @Override
+        protected Double compute() {
+            return new Searcher(_snapshot.toState(), _rootSide, _deadline)
+                    .chanceValue(_plies, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+        }
+
+        private final PositionSnapshot _snapshot;
+        private final int _plies;
+        private final Side _rootSide;
+        private final long _deadline;
+    }
+
+    /** Computes the value of the best play after one dice outcome, on a private copy. */
+    private final class OutcomeTask extends RecursiveTask<Double> {
+
+        /**
+         * Construct a task computing the value of SNAPSHOT after rolling OUTCOME for ROOTSIDE,
+         * searching PLIES plies until DEADLINE.
+         */
+        OutcomeTask(PositionSnapshot snapshot, int outcome, int plies, Side rootSide,
+                    long deadline) {
+            _snapshot = snapshot;
+            _outcome = outcome;
+            _plies = plies;
+            _rootSide = rootSide;
+            _deadline = deadline;
+        }
+
+        @Override
+        protected Double compute() {
+            return new Searcher(_snapshot.toState(), _rootSide, _deadline)
+                    .outcomeValue(_outcome, _plies, Double.NEGATIVE_INFINITY,
+                                  Double.POSITIVE_INFINITY);
+        }
+
+        private final PositionSnapshot _snapshot;
+        private final int _outcome;
+        private final int _plies;
+        private final Side _rootSide;
+        private final long _deadline;
+    }
+
+    /**
+     * Runs a list of tasks within the pool, in order, storing the result of the I-th task in
+     * RESULTS[I] and setting COMPLETED[I] iff it completed. The first tasks are started first, by
+     * this task as well as by the threads stealing from it. Once DEADLINE has passed, the tasks
+     * that have not completed are cancelled rather than waited for.
+     */
+    private static final class JoinTask extends RecursiveTask<Void> {
+
+        JoinTask(List<ForkJoinTask<Double>> tasks, long deadline, double[] results,
+                 boolean[] completed) {
+            _tasks = tasks;
+            _deadline = deadline;
+            _results = results;
+            _completed = completed;
+        }
+
+        @Override
+        protected Void compute() {
+            for (int i = 1; i < _tasks.size(); i++) {
+                _tasks.get(i).fork();
+            }
+            boolean aborted = false;
+            for (int i = 0; i < _tasks.size(); i++) {
+                ForkJoinTask<Double> task = _tasks.get(i);
+                if (aborted) {
+                    task.cancel(false);
+                    if (task.isCompletedNormally()) {
+                        _results[i] = task.join();
+                        _completed[i] = true;
+                    }
+                    continue;
+                }
+                try {
+                    _results[i] = i == 0 ? task.invoke() : task.join();
+                    _completed[i] = true;
+                } catch (RuntimeException excp) {
+                    /* An aborted task may surface as the cancellation of another. */
+                    if (!pastDeadline(_deadline)) {
+                        throw excp;
+                    }
+                    aborted = true;
+                }
+            }
+            return null;
+        }
+
+        private final List<ForkJoinTask<Double>> _tasks;
+        private final long _deadline;
+        private final double[] _results;
+        private final boolean[] _completed;
+    }
+
+    /** Abandons a search that passed its deadline. */
+    private static final class SearchAborted extends RuntimeException {
+
+        SearchAborted() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Chance nodes closer to the horizon than this are searched sequentially, as their subtrees
+     * are too small to be worth a task.
+     */
+    static final int PARALLEL_MIN_PLIES = 2;
+
+    /** The initial capacity of the value buffers of batches. */
+    private static final int INITIAL_BATCH_SIZE = 64;
+
+    /**
+     * Mixed into the keys of chance nodes searched for black, since values are stored from the
+     * point of view of the side searched for.
+     */
+    private static final long BLACK_ROOT_KEY = 0x9E3779B97F4A7C15L;
+
+    /** The deadline of a search without one. */
+    private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+    /** Thrown by every search that passes its deadline. Carries no stack trace. */
+    private static final SearchAborted ABORTED = new SearchAborted();
+
+    /** Scores the positions at the search horizon. */
+    private final Evaluator _evaluator;
+
+    /** The number of plies searched, at most when deepening iteratively. */
+    private final int _plies;
+
+    /** The pool searching in parallel, or null if I search on the calling thread. */
+    private final ForkJoinPool _pool;
+
+    /** Caches the values of chance nodes, or null. */
+    private volatile TranspositionTable _table;
+
+    /** Whether chance nodes are searched with Star1 and Star2. */
+    private volatile boolean _pruning;
+
+    /** Limits the time of my searches, or null. */
+    private volatile TimeBudget _budget;
+
+    /** The number of positions evaluated so far, counted by all threads. */
+    private final LongAdder _numEvaluations = new LongAdder();
+
+    /** The number of chance and play nodes searched so far, counted by all threads. */
+    private final LongAdder _numNodes = new LongAdder();
+
+    /** The number of nodes whose search was cut short so far, counted by all threads. */
+    private final LongAdder _numCutoffs = new LongAdder();
+
+    /** The value of the play selected last. */
+    private double _lastValue;
+
+    /** The report of the last search, or null. */
+    private SearchReport _lastReport;
+}
@@ -10,9 +10,14 @@ import java.util.Set;
 public class Game {
 
     Game() {
+        this(new AI.RandomChoice(), new AI.RandomChoice());
+    }
+
+    /** A game between the move pickers WHITE and BLACK. */
+    Game(MovePickerInterface white, MovePickerInterface black) {
         _state = new State(Side.WHITE, 1, 1);
-        _movePickerWhite = new AI.RandomChoice();
-        _movePickerBlack = new AI.RandomChoice();
+        _movePickerWhite = white;
+        _movePickerBlack = black;
     }
 
     public void play() {
@@ -27,6 +32,18 @@ public class Game {
         System.out.println("Executing Turn\n");
         _state.roll(); // TODO: Dice should not be rerolled on the first turn if doesWhiteStart
         // is called and already rolls the dice.
+        if (!gameOver() && activePicker() instanceof PlayPickerInterface picker) {
+            /* The picker chooses the whole play at once, from all of the turn's plays. */
+            _plays.generate(_state);
+            int play = picker.pickPlay(_state, _plays);
+            for (int i = 0; i < _plays.playLength(play); i++) {
+                _state.print();
+                Move move = _plays.move(play, i);
+                System.out.println("Playing move: " + move);
+                makeMove(move);
+            }
+            return;
+        }
         while (!availableRolls().isEmpty() && !legalMoves().isEmpty()) {
             _state.print();
             Move move = selectMove(legalMoves());
@@ -37,11 +54,12 @@ public class Game {
 
     /** Returns a move selected from the move picker associated with the active player. */
     private Move selectMove(Set<Move> moves) {
-        if (_state.getCurrentSide().isWhite()) {
-            return _movePickerWhite.selectMove(moves);
-        } else {
-            return _movePickerBlack.selectMove(moves);
-        }
+        return activePicker().selectMove(_state, moves);
+    }
+
+    /** Returns the move picker associated with the active player. */
+    private MovePickerInterface activePicker() {
+        return _state.getCurrentSide().isWhite() ? _movePickerWhite : _movePickerBlack;
     }
 
     /**
@@ -75,7 +93,7 @@ public class Game {
      * move. In the case of a Pasch, say two fours, this would initially contain four fours at
      * the start of a turn. */
     private List<Integer> availableRolls() {
-        return _state.getAvailableRolls();
+        return _state.getRemainingRolls();
     }
 
     /** Returns true iff the game is over. */
@@ -98,4 +116,6 @@ public class Game {
     private final MovePickerInterface _movePickerBlack;
     /** The state of this game. */
     private final State _state;
+    /** The plays of the current turn, for pickers choosing whole plays. */
+    private final PlayGenerator _plays = new PlayGenerator();
 }
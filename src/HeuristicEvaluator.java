@@ -0,0 +1,92 @@
+/**
+ * Evaluates a position by a hand-tuned weighted sum of features of either side: the race, blots
+ * (above all those the opponent can still hit), made points, points made in the home board,
+ * the longest prime, anchors in the opponent's home board, pieces on the bar and pieces borne
+ * off. The sum is squashed into the range between LOSS and WIN.
+ * <p>
+ * Every feature is read from counts and bitmasks a Board keeps up to date as moves are made and
+ * unmade (see Board.madePointMask and Board.blotMask), so an evaluation takes a few bit
+ * operations per side and never scans the points of the board.
+ */
+public class HeuristicEvaluator implements Evaluator {
+
+    @Override
+    public double evaluate(State state, Side side) {
+        if (state.gameOver()) {
+            return Evaluator.terminalValue(state, side);
+        }
+        Board board = state.getBoard();
+        Side opponent = side.opponent();
+        int ownPips = board.pipCount(side);
+        int opponentPips = board.pipCount(opponent);
+        double score = RACE_WEIGHT * (opponentPips - ownPips) / (opponentPips + ownPips + 1)
+                + ESCAPED_WEIGHT * (board.numEscaped(side) - board.numEscaped(opponent));
+        if (!board.noContact()) {
+            score += contactScore(board, side) - contactScore(board, opponent);
+        }
+        /* Never reaches WIN or LOSS, which are reserved for finished games. */
+        return Math.tanh(score);
+    }
+
+    /** Returns the score of the features of SIDE on BOARD that only matter while in contact. */
+    private static double contactScore(Board board, Side side) {
+        int made = board.madePointMask(side);
+        int blots = board.blotMask(side);
+        return BLOT_WEIGHT * Integer.bitCount(blots)
+                + EXPOSED_BLOT_WEIGHT * Integer.bitCount(blots & exposedMask(board, side))
+                + MADE_POINT_WEIGHT * Integer.bitCount(made)
+                + HOME_POINT_WEIGHT * Integer.bitCount(made & homeMask(side))
+                + ANCHOR_WEIGHT * Integer.bitCount(made & homeMask(side.opponent()))
+                + PRIME_WEIGHT * longestRun(made)
+                + CAPTURED_WEIGHT * board.numCaptured(side);
+    }
+
+    /**
+     * Returns a bitmask of the board positions of BOARD where a piece of SIDE could still be hit:
+     * those an opponent's piece on the board or on the bar has yet to pass.
+     */
+    private static int exposedMask(Board board, Side side) {
+        Side opponent = side.opponent();
+        if (board.hasCapturedPiece(opponent)) {
+            return BOARD_MASK;
+        }
+        int back = board.furthestBackIndex(opponent);
+        if (back < 0) {
+            return 0;
+        }
+        /* White moves up the board, so a white piece is exposed below black's furthest piece, and
+        a black piece above white's. */
+        return side.isWhite() ? (1 << back) - 1 : BOARD_MASK & ~((2 << back) - 1);
+    }
+
+    /** Returns a bitmask of the positions of the end zone of SIDE. */
+    private static int homeMask(Side side) {
+        return side.isWhite() ? WHITE_HOME_MASK : BLACK_HOME_MASK;
+    }
+
+    /** Returns the length of the longest run of consecutive set bits of MASK. */
+    static int longestRun(int mask) {
+        int length = 0;
+        for (; mask != 0; mask &= mask >>> 1) {
+            length += 1;
+        }
+        return length;
+    }
+
+    /** All positions of the board. */
+    private static final int BOARD_MASK = (1 << Structure.BOARD_SIZE) - 1;
+    private static final int WHITE_HOME_MASK =
+            BOARD_MASK & -(1 << Structure.END_ZONE_START_INDEX_WHITE);
+    private static final int BLACK_HOME_MASK = (1 << (Structure.END_ZONE_END_INDEX_BLACK + 1)) - 1;
+
+    /** The weights of the features, in the units of the score before squashing. */
+    private static final double RACE_WEIGHT = 3.0;
+    private static final double ESCAPED_WEIGHT = 0.05;
+    private static final double BLOT_WEIGHT = -0.03;
+    private static final double EXPOSED_BLOT_WEIGHT = -0.12;
+    private static final double MADE_POINT_WEIGHT = 0.04;
+    private static final double HOME_POINT_WEIGHT = 0.06;
+    private static final double ANCHOR_WEIGHT = 0.1;
+    private static final double PRIME_WEIGHT = 0.08;
+    private static final double CAPTURED_WEIGHT = -0.15;
+}
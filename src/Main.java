@@ -2,6 +2,12 @@ import java.io.IOException;
 
 public class Main {
     public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals(BUILD_BEAROFF)) {
+            /* The databases are built once, explicitly, rather than on first use. */
+            BearoffDatabase.generateStandard();
+            TwoSidedBearoffDatabase.generateStandard(Runtime.getRuntime().availableProcessors());
+            return;
+        }
         initialize();
         _game.play();
     }
@@ -10,5 +16,8 @@ public class Main {
         _game = new Game();
     }
 
+    /** The argument that builds the standard bearoff databases instead of playing. */
+    private static final String BUILD_BEAROFF = "--build-bearoff";
+
     private static Game _game;
 }
\ No newline at end of file
@@ -0,0 +1,409 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * A PlayPicker running Monte Carlo tree search with UCT. The tree alternates between two kinds
+ * of nodes: decision nodes, where a side has rolled its dice and picks one of its plays, and
+ * chance nodes, the positions after a play, where the dice of the next turn are rolled. Decision
+ * nodes select their children by UCT, chance nodes sample theirs by the probability of the dice.
+ * A new leaf is valued by a single random playout (see Rollout.playout).
+ * <p>
+ * The tree lives in flat primitive arrays indexed by node, with the children of a node in a
+ * contiguous block, so a node costs a few dozen bytes and no objects. After every decision the
+ * tree is kept, and at the next decision the node matching the new position, reached through my
+ * play, the opponent's dice and the opponent's play, becomes the new root. Its subtree is
+ * compacted into the front of the arrays and everything else is dropped, so the statistics
+ * gathered while thinking about the previous turn carry over.
+ */
+public class MctsPicker extends PlayPicker {
+
+    /**
+     * Construct a picker running NUMSIMULATIONS simulations per decision, with a tree of at most
+     * MAXNODES nodes, the UCT exploration constant EXPLORATION and random SEED. The children of
+     * the root are always added, even if they do not fit within MAXNODES.
+     */
+    public MctsPicker(int numSimulations, int maxNodes, double exploration, long seed) {
+        if (numSimulations < 1 || maxNodes < 1 + Dice.NUM_OUTCOMES) {
+            throw new BackgammonError("MCTS needs at least one simulation and room for a tree.");
+        }
+        _numSimulations = numSimulations;
+        _maxNodes = maxNodes;
+        _exploration = exploration;
+        _random = new SplittableRandom(seed);
+    }
+
+    /** Returns the number of nodes of my tree. */
+    public int treeSize() {
+        return _tree._size;
+    }
+
+    /** Returns the number of nodes carried over from the previous decision into the last one. */
+    public int lastReusedNodes() {
+        return _lastReusedNodes;
+    }
+
+    /**
+     * Returns the number of simulations that had passed through the root of the last decision
+     * before it started, thanks to tree reuse.
+     */
+    public int lastReusedVisits() {
+        return _lastReusedVisits;
+    }
+
+    @Override
+    protected int selectPlay(State state, PlayGenerator plays) {
+        Side side = state.getCurrentSide();
+        int outcome = state.turnStartOutcome();
+        long rootKey = outcome < 0 ? 0 : decisionKey(state.zobristKey(), outcome);
+        int root = outcome < 0 ? -1 : findReusableRoot(rootKey);
+        if (root < 0) {
+            _tree.clear();
+            _root = _tree.add(rootKey);
+            _lastReusedNodes = 0;
+        } else {
+            _spare.copySubtree(_tree, root);
+            Tree tree = _tree;
+            _tree = _spare;
+            _spare = tree;
+            _root = 0;
+            _lastReusedNodes = _tree._size;
+        }
+        _lastReusedVisits = _tree._visits[_root];
+        if (_tree._firstChild[_root] < 0) {
+            /* The root always gets its children, beyond the node budget if need be, so that
+            there is a play to pick. */
+            expandDecision(state, _root, true);
+        }
+
+        int base = state.numUndoableMoves();
+        for (int i = 0; i < _numSimulations; i++) {
+            simulate(state);
+            while (state.numUndoableMoves() > base) {
+                state.unmakeMove();
+            }
+        }
+
+        /* Play the most visited play, and find it among PLAYS by the position it reaches. */
+        int first = _tree._firstChild[_root];
+        int best = first;
+        for (int child = first + 1; child < first + _tree._numChildren[_root]; child++) {
+            if (_tree._visits[child] > _tree._visits[best]) {
+                best = child;
+            }
+        }
+        for (int play = 0; play < plays.numPlays(); play++) {
+            if ((plays.resultingKey(play) ^ Zobrist.sideToMove(side.opponent()))
+                    == _tree._keys[best]) {
+                return play;
+            }
+        }
+        throw new BackgammonError("The selected play is not among the legal plays.");
+    }
+
+    /** Run a single simulation from the root, leaving all its moves on the undo stack of STATE. */
+    private void simulate(State state) {
+        Tree tree = _tree;
+        int depth = 0;
+        _path[depth++] = _root;
+        int node = _root;
+        double result;
+        while (true) {
+            /* NODE is a decision node, its side has rolled. */
+            if (tree._firstChild[node] < 0 && !expandDecision(state, node, false)) {
+                result = Rollout.playout(state, Side.WHITE, _random, true);
+                break;
+            }
+            node = selectChild(node, state.getCurrentSide());
+            _path[depth++] = node;
+            for (int i = 0; i < tree._playLength[node]; i++) {
+                state.makeMove(tree._playMoves[node * PlayGenerator.MAX_PLAY_LENGTH + i]);
+            }
+            if (state.gameOver()) {
+                result = Evaluator.terminalValue(state, Side.WHITE);
+                break;
+            }
+            /* NODE is a chance node. */
+            if (tree._visits[node] == 0 || !expandChance(node)) {
+                result = Rollout.playout(state, Side.WHITE, _random, false);
+                break;
+            }
+            int outcome = sampleOutcome();
+            state.setDice(Dice.outcomeFirst(outcome), Dice.outcomeSecond(outcome));
+            node = tree._firstChild[node] + outcome;
+            _path[depth++] = node;
+            if (depth + 2 > _path.length) {
+                _path = Arrays.copyOf(_path, 2 * _path.length);
+            }
+        }
+        for (int i = 0; i < depth; i++) {
+            tree._visits[_path[i]] += 1;
+            tree._values[_path[i]] += result;
+        }
+    }
+
+    /**
+     * Returns the child of the decision node NODE, whose side to move is SIDE, with the highest
+     * UCT score. Unvisited children come first, in order.
+     */
+    private int selectChild(int node, Side side) {
+        Tree tree = _tree;
+        int first = tree._firstChild[node];
+        double sign = side == Side.WHITE ? 1 : -1;
+        double logVisits = Math.log(Math.max(1, tree._visits[node]));
+        int best = first;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < first + tree._numChildren[node]; child++) {
+            int visits = tree._visits[child];
+            if (visits == 0) {
+                return child;
+            }
+            double score = sign * tree._values[child] / visits
+                    + _exploration * Math.sqrt(logVisits / visits);
+            if (score > bestScore) {
+                bestScore = score;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Give the decision node NODE of STATE a chance node child for every play. Returns false if
+     * the tree has no room for them, unless FORCE, in which case the tree grows past its budget.
+     */
+    private boolean expandDecision(State state, int node, boolean force) {
+        int numPlays = _expander.generate(state);
+        if (!force && _tree._size + numPlays > _maxNodes) {
+            return false;
+        }
+        Side opponent = state.getCurrentSide().opponent();
+        int first = _tree.reserve(numPlays);
+        for (int play = 0; play < numPlays; play++) {
+            int child = first + play;
+            _tree._keys[child] = _expander.resultingKey(play) ^ Zobrist.sideToMove(opponent);
+            _tree._playLength[child] = (byte) _expander.playLength(play);
+            for (int i = 0; i < _expander.playLength(play); i++) {
+                _tree._playMoves[child * PlayGenerator.MAX_PLAY_LENGTH + i]
+                        = _expander.packedMove(play, i);
+            }
+        }
+        _tree._firstChild[node] = first;
+        _tree._numChildren[node] = numPlays;
+        return true;
+    }
+
+    /**
+     * Give the chance node NODE a decision node child for every dice outcome, unless it has them
+     * already. Returns false if the tree has no room for them.
+     */
+    private boolean expandChance(int node) {
+        if (_tree._firstChild[node] >= 0) {
+            return true;
+        }
+        if (_tree._size + Dice.NUM_OUTCOMES > _maxNodes) {
+            return false;
+        }
+        int first = _tree.reserve(Dice.NUM_OUTCOMES);
+        for (int outcome = 0; outcome < Dice.NUM_OUTCOMES; outcome++) {
+            _tree._keys[first + outcome] = decisionKey(_tree._keys[node], outcome);
+            _tree._outcome[first + outcome] = (byte) outcome;
+        }
+        _tree._firstChild[node] = first;
+        _tree._numChildren[node] = Dice.NUM_OUTCOMES;
+        return true;
+    }
+
+    /** Returns a dice outcome drawn with the probability of rolling it. */
+    private int sampleOutcome() {
+        int first = _random.nextInt(1, Dice.NUM_SIDES + 1);
+        int second = _random.nextInt(1, Dice.NUM_SIDES + 1);
+        return Dice.outcome(first, second);
+    }
+
+    /**
+     * Returns the decision node within two turns below my current root with KEY, or -1 if there
+     * is none.
+     */
+    private int findReusableRoot(long key) {
+        if (_root < 0 || _tree._size == 0) {
+            return -1;
+        }
+        int[] frontier = { _root };
+        for (int level = 0; level <= REUSE_DEPTH; level++) {
+            if (level % 2 == 0) {
+                for (int node : frontier) {
+                    if (_tree._keys[node] == key && _tree._firstChild[node] >= 0) {
+                        return node;
+                    }
+                }
+            }
+            int size = 0;
+            for (int node : frontier) {
+                size += _tree._firstChild[node] >= 0 ? _tree._numChildren[node] : 0;
+            }
+            int[] next = new int[size];
+            size = 0;
+            for (int node : frontier) {
+                for (int i = 0; _tree._firstChild[node] >= 0 && i < _tree._numChildren[node]; i++) {
+                    next[size++] = _tree._firstChild[node] + i;
+                }
+            }
+            frontier = next;
+        }
+        return -1;
+    }
+
+    /** Returns the key of the decision node of the position with KEY after rolling OUTCOME. */
+    private static long decisionKey(long key, int outcome) {
+        return key ^ OUTCOME_KEYS[outcome];
+    }
+
+    /**
+     * The nodes of a search tree in flat arrays. Decision nodes store the dice outcome leading to
+     * them, chance nodes the play leading to them. Values are sums of results for white.
+     */
+    private static final class Tree {
+
+        /** Remove all nodes. */
+        void clear() {
+            _size = 0;
+        }
+
+        /** Add a single unexpanded node with KEY and return its index. */
+        int add(long key) {
+            int node = reserve(1);
+            _keys[node] = key;
+            return node;
+        }
+
+        /** Add NUMNODES unexpanded nodes in a contiguous block, and return the first. */
+        int reserve(int numNodes) {
+            ensureCapacity(_size + numNodes);
+            int first = _size;
+            for (int node = first; node < first + numNodes; node++) {
+                _firstChild[node] = -1;
+                _numChildren[node] = 0;
+                _visits[node] = 0;
+                _values[node] = 0;
+                _outcome[node] = 0;
+                _playLength[node] = 0;
+            }
+            _size += numNodes;
+            return first;
+        }
+
+        /** Replace my nodes with the subtree of OTHER below ROOT, which becomes node 0. */
+        void copySubtree(Tree other, int root) {
+            clear();
+            ensureCapacity(other._size);
+            /* Nodes are numbered in breadth-first order, so that node K is copied from
+            _source[K] and children blocks stay contiguous. */
+            if (_source.length < other._size) {
+                _source = new int[other._keys.length];
+            }
+            _source[0] = root;
+            _size = 1;
+            for (int node = 0; node < _size; node++) {
+                int from = _source[node];
+                _keys[node] = other._keys[from];
+                _visits[node] = other._visits[from];
+                _values[node] = other._values[from];
+                _outcome[node] = other._outcome[from];
+                _playLength[node] = other._playLength[from];
+                System.arraycopy(other._playMoves, from * PlayGenerator.MAX_PLAY_LENGTH,
+                                 _playMoves, node * PlayGenerator.MAX_PLAY_LENGTH,
+                                 PlayGenerator.MAX_PLAY_LENGTH);
+                int numChildren = other._firstChild[from] >= 0 ? other._numChildren[from] : 0;
+                _firstChild[node] = numChildren > 0 ? _size : -1;
+                _numChildren[node] = numChildren;
+                for (int i = 0; i < numChildren; i++) {
+                    _source[_size++] = other._firstChild[from] + i;
+                }
+            }
+        }
+
+        /** Ensure I can hold NUMNODES nodes. */
+        private void ensureCapacity(int numNodes) {
+            if (numNodes <= _keys.length) {
+                return;
+            }
+            int capacity = Math.max(numNodes, 2 * _keys.length);
+            _keys = Arrays.copyOf(_keys, capacity);
+            _firstChild = Arrays.copyOf(_firstChild, capacity);
+            _numChildren = Arrays.copyOf(_numChildren, capacity);
+            _visits = Arrays.copyOf(_visits, capacity);
+            _values = Arrays.copyOf(_values, capacity);
+            _outcome = Arrays.copyOf(_outcome, capacity);
+            _playLength = Arrays.copyOf(_playLength, capacity);
+            _playMoves = Arrays.copyOf(_playMoves, capacity * PlayGenerator.MAX_PLAY_LENGTH);
+        }
+
+        /** The Zobrist key of every node, mixed with the dice outcome for decision nodes. */
+        private long[] _keys = new long[INITIAL_CAPACITY];
+        /** The first child of every node, or -1 if it has not been expanded. */
+        private int[] _firstChild = new int[INITIAL_CAPACITY];
+        private int[] _numChildren = new int[INITIAL_CAPACITY];
+        private int[] _visits = new int[INITIAL_CAPACITY];
+        /** The sum of the results for white of the simulations through every node. */
+        private double[] _values = new double[INITIAL_CAPACITY];
+        /** The dice outcome leading to every decision node. */
+        private byte[] _outcome = new byte[INITIAL_CAPACITY];
+        /** The number of moves of the play leading to every chance node. */
+        private byte[] _playLength = new byte[INITIAL_CAPACITY];
+        /** The encoded moves of the play leading to every chance node. */
+        private int[] _playMoves = new int[INITIAL_CAPACITY * PlayGenerator.MAX_PLAY_LENGTH];
+        /** The number of nodes in use. */
+        private int _size;
+        /** The node of the source tree every node is copied from, while copying a subtree. */
+        private int[] _source = new int[0];
+    }
+
+    /** The initial number of nodes of a tree. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** The number of plies below the root searched for a new root: two turns of two plies. */
+    private static final int REUSE_DEPTH = 4;
+
+    /** Random keys distinguishing the decision nodes of the same position by their dice. */
+    private static final long[] OUTCOME_KEYS = new long[Dice.NUM_OUTCOMES];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_D1CEL);
+        for (int outcome = 0; outcome < Dice.NUM_OUTCOMES; outcome++) {
+            OUTCOME_KEYS[outcome] = random.nextLong();
+        }
+    }
+
+    /** The number of simulations per decision. */
+    private final int _numSimulations;
+
+    /** The largest number of nodes of my tree. */
+    private final int _maxNodes;
+
+    /** The weight of exploration in UCT. */
+    private final double _exploration;
+
+    /** The source of dice and playout moves. */
+    private final SplittableRandom _random;
+
+    /** Generates the plays of decision nodes as they are expanded. */
+    private final PlayGenerator _expander = new PlayGenerator();
+
+    /** My search tree. */
+    private Tree _tree = new Tree();
+
+    /** A second tree, into which the reused part of my tree is compacted. */
+    private Tree _spare = new Tree();
+
+    /** The root of my tree, or -1 before the first decision. */
+    private int _root = -1;
+
+    /** The nodes on the path of the current simulation. */
+    private int[] _path = new int[64];
+
+    /** The number of nodes carried over into the last decision. */
+    private int _lastReusedNodes;
+
+    /** The number of simulations through the root of the last decision before it started. */
+    private int _lastReusedVisits;
+}
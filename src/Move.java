@@ -33,6 +33,9 @@ public abstract class Move {
     /** Returns a readable string representing the move. */
     public abstract String toString();
 
+    /** Returns my int encoding. See PackedMove. */
+    abstract int toPacked();
+
     /** The starting index of the piece to be moved. */
     private final BoardIndex _startIndex;
     /** The target index of the piece to be moved. */
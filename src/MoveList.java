@@ -0,0 +1,84 @@
+import java.util.Arrays;
+
+/**
+ * A growable list of moves encoded as ints (see PackedMove). A MoveList is meant to be cleared
+ * and refilled over and over: its backing array only ever grows, so once it fits the largest set
+ * of moves seen, filling it allocates nothing.
+ */
+public class MoveList {
+
+    /** Construct an empty move list. */
+    public MoveList() {
+        _moves = new int[INITIAL_CAPACITY];
+    }
+
+    /** Returns the number of moves in me. */
+    public int size() {
+        return _size;
+    }
+
+    /** Returns true iff I contain no moves. */
+    public boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /** Returns the I-th encoded move in me. */
+    public int get(int i) {
+        if (i >= _size) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return _moves[i];
+    }
+
+    /** Append the encoded MOVE to me. */
+    public void add(int move) {
+        if (_size == _moves.length) {
+            _moves = Arrays.copyOf(_moves, 2 * _size);
+        }
+        _moves[_size] = move;
+        _size += 1;
+    }
+
+    /** Returns true iff I contain the encoded MOVE. */
+    public boolean contains(int move) {
+        for (int i = 0; i < _size; i++) {
+            if (_moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Remove all moves from me, keeping my backing array. */
+    public void clear() {
+        _size = 0;
+    }
+
+    /** Replace my contents with those of OTHER. */
+    public void copyFrom(MoveList other) {
+        if (_moves.length < other._size) {
+            _moves = new int[other._moves.length];
+        }
+        System.arraycopy(other._moves, 0, _moves, 0, other._size);
+        _size = other._size;
+    }
+
+    /** Return a readable representation of my moves. */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < _size; i++) {
+            sb.append(i == 0 ? "" : ", ").append(PackedMove.toString(_moves[i]));
+        }
+        return sb.append("]").toString();
+    }
+
+    /** The number of moves a new list can hold before growing. */
+    private static final int INITIAL_CAPACITY = 32;
+
+    /** The encoded moves, of which the first _size are in use. */
+    private int[] _moves;
+
+    /** The number of moves in me. */
+    private int _size;
+}
@@ -8,4 +8,17 @@ public interface MovePickerInterface {
      * @return The selected move.
      */
     Move selectMove(Set<Move> moves);
+
+    /**
+     * Given the STATE of a game and the set of its legal MOVES, return one of those moves. Pickers
+     * that need to look at the position, rather than only at the moves, override this. STATE must
+     * not be modified.
+     *
+     * @param state The state of the game, whose active player is to move.
+     * @param moves The legal moves of STATE, from which the returned move may be chosen.
+     * @return The selected move.
+     */
+    default Move selectMove(State state, Set<Move> moves) {
+        return selectMove(moves);
+    }
 }
@@ -0,0 +1,70 @@
+/**
+ * Dense lookup tables for move generation, indexed by side (ordinal), start index and roll. For
+ * every combination they give the target index of the move, or a marker if the move would take
+ * the piece off the board, together with the encoded canonical move (see PackedMove). This turns
+ * the inner loop of move generation into a couple of array reads, without any index arithmetic,
+ * range checks or object lookups.
+ */
+public class MoveTables {
+    /** The target of a move overshooting the edge of the board by exactly one position. */
+    static final int PERFECT_ESCAPE = -1;
+    /** The target of a move overshooting the edge of the board by more than one position. */
+    static final int OVERSHOOT_ESCAPE = -2;
+
+    /**
+     * Returns the target index of a piece of the side with ordinal SIDE at STARTINDEX moved by
+     * ROLL, or PERFECT_ESCAPE or OVERSHOOT_ESCAPE if the piece would leave the board.
+     */
+    static int target(int side, int startIndex, int roll) {
+        return TARGETS[side][startIndex][roll - 1];
+    }
+
+    /**
+     * Returns the encoded board or escape move of a piece of the side with ordinal SIDE at
+     * STARTINDEX moved by ROLL. Whether the move is legal is up to the caller.
+     */
+    static int move(int side, int startIndex, int roll) {
+        return MOVES[side][startIndex][roll - 1];
+    }
+
+    /** Returns the target index of a captured piece of the side with ordinal SIDE using ROLL. */
+    static int reentryTarget(int side, int roll) {
+        return REENTRY_TARGETS[side][roll - 1];
+    }
+
+    /** Returns the encoded reentry move of the side with ordinal SIDE using ROLL. */
+    static int reentryMove(int side, int roll) {
+        return REENTRY_MOVES[side][roll - 1];
+    }
+
+    private static final int[][][] TARGETS =
+            new int[Structure.NUM_COLORS][Structure.BOARD_SIZE][Dice.NUM_SIDES];
+    private static final int[][][] MOVES =
+            new int[Structure.NUM_COLORS][Structure.BOARD_SIZE][Dice.NUM_SIDES];
+    private static final int[][] REENTRY_TARGETS = new int[Structure.NUM_COLORS][Dice.NUM_SIDES];
+    private static final int[][] REENTRY_MOVES = new int[Structure.NUM_COLORS][Dice.NUM_SIDES];
+
+    static {
+        for (Side side : new Side[] { Side.WHITE, Side.BLACK }) {
+            int s = side.ordinal();
+            int direction = side.isWhite() ? 1 : -1;
+            int escapeIndex = side.isWhite() ? Structure.BOARD_SIZE : -1;
+            for (int roll = 1; roll <= Dice.NUM_SIDES; roll++) {
+                int reentryTarget = ReentryMove.determineTargetIndex(roll, side).getIndex();
+                REENTRY_TARGETS[s][roll - 1] = reentryTarget;
+                REENTRY_MOVES[s][roll - 1] = PackedMove.reentry(reentryTarget, roll, side);
+                for (int start = 0; start < Structure.BOARD_SIZE; start++) {
+                    int target = start + direction * roll;
+                    if (BoardIndex.validBoardIndices(target)) {
+                        TARGETS[s][start][roll - 1] = target;
+                        MOVES[s][start][roll - 1] = PackedMove.board(start, target, roll);
+                    } else {
+                        TARGETS[s][start][roll - 1] = target == escapeIndex ? PERFECT_ESCAPE
+                                : OVERSHOOT_ESCAPE;
+                        MOVES[s][start][roll - 1] = PackedMove.escape(start, roll, side);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,404 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Evaluates a position with a feed-forward neural network in the style of TD-Gammon: a layer of
+ * sigmoid hidden units over an encoding of the board (see encode), and NUM_OUTPUTS sigmoid
+ * outputs estimating, for the side the position is evaluated for, the probabilities of winning,
+ * of winning a gammon and a backgammon, and of losing a gammon and a backgammon. A gammon is a
+ * game won before the loser escaped any piece, a backgammon a gammon where the loser still has
+ * a piece captured or in the winner's end zone. The value of a position is its expected outcome
+ * 2 * P(win) - 1.
+ * <p>
+ * All parameters live in one flat float array (see weights), laid out as the hidden weights, one
+ * row of NUM_INPUTS per hidden unit, then the hidden biases, then the output weights, one row per
+ * output, then the output biases. Positions can be evaluated in batches (see evaluateBatch and
+ * evaluatePlays), which multiplies the weights with a whole matrix of inputs at once and reuses
+ * every row of weights for several positions while it is in registers and cache. Scratch buffers
+ * are kept per thread, so one evaluator can be shared by the threads of a search.
+ */
+public class NeuralNetEvaluator implements Evaluator {
+
+    /**
+     * Construct a network with NUMHIDDEN hidden units, with small random weights drawn from
+     * SEED.
+     */
+    public NeuralNetEvaluator(int numHidden, long seed) {
+        this(numHidden, randomWeights(numHidden, seed));
+    }
+
+    /**
+     * Construct a network with NUMHIDDEN hidden units and the parameters WEIGHTS, in the layout
+     * of weights(). WEIGHTS is used, not copied.
+     */
+    public NeuralNetEvaluator(int numHidden, float[] weights) {
+        if (numHidden < 1 || weights.length != numWeights(numHidden)) {
+            throw new BackgammonError("A network with %d hidden units needs %d weights, not %d.",
+                                      numHidden, numWeights(Math.max(numHidden, 0)),
+                                      weights.length);
+        }
+        _numHidden = numHidden;
+        _weights = weights;
+        _hiddenBiases = numHidden * NUM_INPUTS;
+        _outputWeights = _hiddenBiases + numHidden;
+        _outputBiases = _outputWeights + NUM_OUTPUTS * numHidden;
+    }
+
+    /** Returns the number of parameters of a network with NUMHIDDEN hidden units. */
+    public static int numWeights(int numHidden) {
+        return numHidden * (NUM_INPUTS + 1) + NUM_OUTPUTS * (numHidden + 1);
+    }
+
+    /** Returns my number of hidden units. */
+    public int numHidden() {
+        return _numHidden;
+    }
+
+    /**
+     * Returns my parameters. They are shared, not copied, so changing them changes my
+     * evaluations.
+     */
+    public float[] weights() {
+        return _weights;
+    }
+
+    /**
+     * Write my shape and a copy of my parameters to OUT. The parameters may be changed by other
+     * threads meanwhile, in which case some of them are written before and some after a change.
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(FILE_MAGIC);
+        data.writeInt(NUM_INPUTS);
+        data.writeInt(NUM_OUTPUTS);
+        data.writeInt(_numHidden);
+        for (float weight : _weights) {
+            data.writeFloat(weight);
+        }
+        data.flush();
+    }
+
+    /** Returns a network read from IN, as written by write. */
+    public static NeuralNetEvaluator read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != FILE_MAGIC || data.readInt() != NUM_INPUTS
+                || data.readInt() != NUM_OUTPUTS) {
+            throw new BackgammonError("Not a network with the inputs and outputs of this version.");
+        }
+        int numHidden = data.readInt();
+        if (numHidden < 1 || numHidden > MAX_HIDDEN) {
+            throw new BackgammonError("Invalid number of hidden units: %d.", numHidden);
+        }
+        float[] weights = new float[numWeights(numHidden)];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = data.readFloat();
+        }
+        return new NeuralNetEvaluator(numHidden, weights);
+    }
+
+    @Override
+    public double evaluate(State state, Side side) {
+        if (state.gameOver()) {
+            return Evaluator.terminalValue(state, side);
+        }
+        Scratch scratch = _scratch.get().ensureCapacity(1, _numHidden);
+        encode(state.getBoard(), side, state.getCurrentSide() == side, scratch._inputs, 0);
+        forward(scratch._inputs, 1, scratch._hidden, scratch._outputs);
+        return value(scratch._outputs, 0);
+    }
+
+    /**
+     * Store the probabilities of the outcomes of STATE for SIDE in PROBABILITIES, in the order
+     * WIN, WIN_GAMMON, WIN_BACKGAMMON, LOSE_GAMMON and LOSE_BACKGAMMON. A finished game has the
+     * probabilities of its actual outcome.
+     */
+    public void probabilities(State state, Side side, float[] probabilities) {
+        if (state.gameOver()) {
+            outcome(state.getBoard(), state.winner(), side, probabilities, 0);
+            return;
+        }
+        Scratch scratch = _scratch.get().ensureCapacity(1, _numHidden);
+        encode(state.getBoard(), side, state.getCurrentSide() == side, scratch._inputs, 0);
+        forward(scratch._inputs, 1, scratch._hidden, scratch._outputs);
+        System.arraycopy(scratch._outputs, 0, probabilities, 0, NUM_OUTPUTS);
+    }
+
+    /**
+     * Evaluate NUMPOSITIONS positions at once. INPUTS holds their encodings (see encode), one
+     * after the other, and the NUM_OUTPUTS probabilities of every position are stored one after
+     * the other in OUTPUTS.
+     */
+    public void evaluateBatch(float[] inputs, int numPositions, float[] outputs) {
+        Scratch scratch = _scratch.get().ensureCapacity(numPositions, _numHidden);
+        forward(inputs, numPositions, scratch._hidden, outputs);
+    }
+
+    /**
+     * Store the value of every play of PLAYS, which have just been generated for STATE, for the
+     * side making them in VALUES, evaluating all resulting positions in a single batch. STATE is
+     * modified while the plays are made, but returned to its original configuration.
+     */
+    public void evaluatePlays(State state, PlayGenerator plays, double[] values) {
+        evaluatePlays(state, plays, state.getCurrentSide(), values);
+    }
+
+    /** Evaluates all resulting positions in a single batch. */
+    @Override
+    public void evaluatePlays(State state, PlayGenerator plays, Side side, double[] values) {
+        int numPlays = plays.numPlays();
+        Scratch scratch = _scratch.get().ensureCapacity(numPlays, _numHidden);
+        int numEncoded = 0;
+        for (int play = 0; play < numPlays; play++) {
+            plays.makePlay(state, play);
+            if (state.gameOver()) {
+                values[play] = Evaluator.terminalValue(state, side);
+            } else {
+                values[play] = Double.NaN;
+                encode(state.getBoard(), side, state.getCurrentSide() == side,
+                       scratch._inputs, numEncoded * NUM_INPUTS);
+                numEncoded += 1;
+            }
+            plays.unmakePlay(state, play);
+        }
+        forward(scratch._inputs, numEncoded, scratch._hidden, scratch._outputs);
+        for (int play = 0, position = 0; play < numPlays; play++) {
+            if (Double.isNaN(values[play])) {
+                values[play] = value(scratch._outputs, position * NUM_OUTPUTS);
+                position += 1;
+            }
+        }
+    }
+
+    /**
+     * Store the encoding of BOARD, seen by SIDE, into INPUTS from OFFSET on. ONMOVE is true iff
+     * SIDE is to move. The board is oriented so that SIDE's pieces move towards higher indices.
+     * Every point has four inputs for SIDE's pieces and four for the opponent's: whether it
+     * holds at least one, two and three pieces, and half the number of pieces beyond three. They
+     * are followed by the captured pieces of either side divided by two, the escaped pieces of
+     * either side divided by NUM_PIECES_PER_SIDE, and whether SIDE or the opponent is on move.
+     */
+    public static void encode(Board board, Side side, boolean onMove, float[] inputs, int offset) {
+        Side opponent = side.opponent();
+        boolean flip = !side.isWhite();
+        int ownSign = side.isWhite() ? 1 : -1;
+        int opponentBase = offset + Structure.BOARD_SIZE * UNITS_PER_POINT;
+        for (int i = 0; i < Structure.BOARD_SIZE; i++) {
+            int point = flip ? Structure.BOARD_SIZE - 1 - i : i;
+            int pieces = ownSign * board.get(BoardIndex.make(point));
+            encodePoint(Math.max(pieces, 0), inputs, offset + i * UNITS_PER_POINT);
+            encodePoint(Math.max(-pieces, 0), inputs, opponentBase + i * UNITS_PER_POINT);
+        }
+        int rest = offset + 2 * Structure.BOARD_SIZE * UNITS_PER_POINT;
+        inputs[rest] = board.numCaptured(side) / 2f;
+        inputs[rest + 1] = board.numCaptured(opponent) / 2f;
+        inputs[rest + 2] = (float) board.numEscaped(side) / Structure.NUM_PIECES_PER_SIDE;
+        inputs[rest + 3] = (float) board.numEscaped(opponent) / Structure.NUM_PIECES_PER_SIDE;
+        inputs[rest + 4] = onMove ? 1 : 0;
+        inputs[rest + 5] = onMove ? 0 : 1;
+    }
+
+    /** Store the four inputs of a point holding PIECES pieces of one side at INPUTS[OFFSET]. */
+    private static void encodePoint(int pieces, float[] inputs, int offset) {
+        inputs[offset] = pieces >= 1 ? 1 : 0;
+        inputs[offset + 1] = pieces >= 2 ? 1 : 0;
+        inputs[offset + 2] = pieces >= 3 ? 1 : 0;
+        inputs[offset + 3] = pieces > 3 ? (pieces - 3) / 2f : 0;
+    }
+
+    /**
+     * Store the outcome of a game on BOARD won by WINNER, for SIDE, into OUTCOME from OFFSET on,
+     * as probabilities of 0 or 1 in the order of the outputs.
+     */
+    static void outcome(Board board, Side winner, Side side, float[] outcome, int offset) {
+        Side loser = winner.opponent();
+        boolean gammon = board.numEscaped(loser) == 0;
+        boolean backgammon = gammon && (board.hasCapturedPiece(loser)
+                || (board.occupancyMask(loser) & endZoneMask(winner)) != 0);
+        boolean won = winner == side;
+        outcome[offset + WIN] = won ? 1 : 0;
+        outcome[offset + WIN_GAMMON] = won && gammon ? 1 : 0;
+        outcome[offset + WIN_BACKGAMMON] = won && backgammon ? 1 : 0;
+        outcome[offset + LOSE_GAMMON] = !won && gammon ? 1 : 0;
+        outcome[offset + LOSE_BACKGAMMON] = !won && backgammon ? 1 : 0;
+    }
+
+    /** Returns a bitmask of the board positions in the end zone of SIDE. */
+    private static int endZoneMask(Side side) {
+        int first = side.isWhite() ? Structure.END_ZONE_START_INDEX_WHITE
+                : Structure.END_ZONE_START_INDEX_BLACK;
+        return ((1 << (Structure.BOARD_SIZE / 4)) - 1) << first;
+    }
+
+    /** Returns the value of the position whose probabilities start at OUTPUTS[OFFSET]. */
+    private static double value(float[] outputs, int offset) {
+        return 2.0 * outputs[offset + WIN] - 1.0;
+    }
+
+    /**
+     * Compute the hidden activations into HIDDEN and the outputs into OUTPUTS of NUMPOSITIONS
+     * positions encoded in INPUTS. HIDDEN holds the activations of a position in a row of
+     * numHidden.
+     */
+    void forward(float[] inputs, int numPositions, float[] hidden, float[] outputs) {
+        float[] w = _weights;
+        int numHidden = _numHidden;
+        /* The hidden layer is a matrix product of the weights with the inputs, computed
+        BLOCK positions at a time, so every row of weights is loaded once per block. */
+        int blockEnd = numPositions - numPositions % BLOCK;
+        for (int h = 0; h < numHidden; h++) {
+            int row = h * NUM_INPUTS;
+            float bias = w[_hiddenBiases + h];
+            for (int p = 0; p < blockEnd; p += BLOCK) {
+                int x0 = p * NUM_INPUTS;
+                int x1 = x0 + NUM_INPUTS;
+                int x2 = x1 + NUM_INPUTS;
+                int x3 = x2 + NUM_INPUTS;
+                float sum0 = bias;
+                float sum1 = bias;
+                float sum2 = bias;
+                float sum3 = bias;
+                for (int i = 0; i < NUM_INPUTS; i++) {
+                    float weight = w[row + i];
+                    sum0 += weight * inputs[x0 + i];
+                    sum1 += weight * inputs[x1 + i];
+                    sum2 += weight * inputs[x2 + i];
+                    sum3 += weight * inputs[x3 + i];
+                }
+                hidden[p * numHidden + h] = sigmoid(sum0);
+                hidden[(p + 1) * numHidden + h] = sigmoid(sum1);
+                hidden[(p + 2) * numHidden + h] = sigmoid(sum2);
+                hidden[(p + 3) * numHidden + h] = sigmoid(sum3);
+            }
+            for (int p = blockEnd; p < numPositions; p++) {
+                int x = p * NUM_INPUTS;
+                float sum = bias;
+                for (int i = 0; i < NUM_INPUTS; i++) {
+                    sum += w[row + i] * inputs[x + i];
+                }
+                hidden[p * numHidden + h] = sigmoid(sum);
+            }
+        }
+        for (int p = 0; p < numPositions; p++) {
+            int a = p * numHidden;
+            for (int o = 0; o < NUM_OUTPUTS; o++) {
+                int row = _outputWeights + o * numHidden;
+                float sum = w[_outputBiases + o];
+                for (int h = 0; h < numHidden; h++) {
+                    sum += w[row + h] * hidden[a + h];
+                }
+                outputs[p * NUM_OUTPUTS + o] = sigmoid(sum);
+            }
+        }
+    }
+
+    /**
+     * Decay the eligibility TRACES by LAMBDA and add the gradients of the outputs of a position
+     * encoded in INPUTS, whose hidden activations and outputs forward computed into HIDDEN and
+     * OUTPUTS. TRACES holds a row of numWeights(numHidden()) per output, in the layout of
+     * weights().
+     */
+    void accumulateTraces(float[] inputs, float[] hidden, float[] outputs, float lambda,
+                          float[] traces) {
+        int numHidden = _numHidden;
+        int numWeights = _weights.length;
+        for (int o = 0; o < NUM_OUTPUTS; o++) {
+            int base = o * numWeights;
+            float outputSlope = outputs[o] * (1 - outputs[o]);
+            for (int h = 0; h < numHidden; h++) {
+                float activation = hidden[h];
+                float hiddenSlope = outputSlope * _weights[_outputWeights + o * numHidden + h]
+                        * activation * (1 - activation);
+                int row = base + h * NUM_INPUTS;
+                for (int i = 0; i < NUM_INPUTS; i++) {
+                    traces[row + i] = lambda * traces[row + i] + hiddenSlope * inputs[i];
+                }
+                traces[base + _hiddenBiases + h] =
+                        lambda * traces[base + _hiddenBiases + h] + hiddenSlope;
+            }
+            /* Only the weights of output O affect it, the rows of the others just decay. */
+            for (int other = 0; other < NUM_OUTPUTS; other++) {
+                int row = base + _outputWeights + other * numHidden;
+                for (int h = 0; h < numHidden; h++) {
+                    traces[row + h] = lambda * traces[row + h]
+                            + (other == o ? outputSlope * hidden[h] : 0);
+                }
+                traces[base + _outputBiases + other] = lambda * traces[base + _outputBiases + other]
+                        + (other == o ? outputSlope : 0);
+            }
+        }
+    }
+
+    /** Returns the logistic function of X. */
+    static float sigmoid(float x) {
+        return (float) (1.0 / (1.0 + Math.exp(-x)));
+    }
+
+    /** Returns the parameters of a network with NUMHIDDEN hidden units, drawn from SEED. */
+    private static float[] randomWeights(int numHidden, long seed) {
+        float[] weights = new float[numWeights(Math.max(numHidden, 0))];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = (float) random.nextDouble(-INITIAL_WEIGHT, INITIAL_WEIGHT);
+        }
+        return weights;
+    }
+
+    /** The buffers of the evaluations of one thread. */
+    private static final class Scratch {
+
+        /** Make room for NUMPOSITIONS positions in a network of NUMHIDDEN hidden units. */
+        Scratch ensureCapacity(int numPositions, int numHidden) {
+            if (_inputs.length < numPositions * NUM_INPUTS) {
+                int capacity = Math.max(numPositions, 2 * _inputs.length / NUM_INPUTS);
+                _inputs = Arrays.copyOf(_inputs, capacity * NUM_INPUTS);
+                _outputs = Arrays.copyOf(_outputs, capacity * NUM_OUTPUTS);
+            }
+            if (_hidden.length < numPositions * numHidden) {
+                _hidden = new float[Math.max(numPositions * numHidden, 2 * _hidden.length)];
+            }
+            return this;
+        }
+
+        private float[] _inputs = new float[0];
+        private float[] _hidden = new float[0];
+        private float[] _outputs = new float[0];
+    }
+
+    /** The number of inputs per point and side. */
+    private static final int UNITS_PER_POINT = 4;
+    /** The number of inputs of a network. See encode. */
+    public static final int NUM_INPUTS = 2 * Structure.BOARD_SIZE * UNITS_PER_POINT + 6;
+
+    /** The outputs of a network, by their index. */
+    public static final int WIN = 0;
+    public static final int WIN_GAMMON = 1;
+    public static final int WIN_BACKGAMMON = 2;
+    public static final int LOSE_GAMMON = 3;
+    public static final int LOSE_BACKGAMMON = 4;
+    public static final int NUM_OUTPUTS = 5;
+
+    /** The number of positions multiplied with every row of weights at once. */
+    private static final int BLOCK = 4;
+    /** Identifies a file written by write. */
+    private static final int FILE_MAGIC = 0x4E4E4267;
+    /** The largest number of hidden units a network read from a file may have. */
+    private static final int MAX_HIDDEN = 1 << 12;
+    /** The largest magnitude of an initial weight. */
+    private static final double INITIAL_WEIGHT = 0.1;
+
+    /** My number of hidden units. */
+    private final int _numHidden;
+    /** All my parameters. See weights(). */
+    private final float[] _weights;
+    /** The offsets of the hidden biases, output weights and output biases in _weights. */
+    private final int _hiddenBiases;
+    private final int _outputWeights;
+    private final int _outputBiases;
+    /** The buffers of every thread evaluating with me. */
+    private final ThreadLocal<Scratch> _scratch = ThreadLocal.withInitial(Scratch::new);
+}
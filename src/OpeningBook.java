@@ -0,0 +1,251 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The best plays of the first turns of a game, computed once, offline, by build. An entry is
+ * keyed by the Zobrist key of a position at the start of a turn together with the dice outcome
+ * rolled (see Dice.outcome), and holds the moves of the play to make and its equity for the side
+ * making it. Entries are kept sorted by key and outcome and found by binary search.
+ * <p>
+ * A book is stored in a file as a header followed by its entries, each a long key, a byte
+ * outcome, a byte play length, the encoded moves of the play and a float equity.
+ */
+public class OpeningBook {
+
+    /**
+     * Construct a book of the entries with KEYS, OUTCOMES, play LENGTHS, MOVES and EQUITIES,
+     * sorted by key and outcome.
+     */
+    private OpeningBook(long[] keys, byte[] outcomes, byte[] lengths, int[] moves,
+                        float[] equities) {
+        _keys = keys;
+        _outcomes = outcomes;
+        _lengths = lengths;
+        _moves = moves;
+        _equities = equities;
+    }
+
+    /**
+     * Returns a book of the first TURNS turns of a game started by either side. The play of every
+     * position and dice outcome is chosen by PICKER, and its equity estimated by NUMGAMES games
+     * of ROLLOUT. The positions of a turn are those reached by the plays of the book in the turn
+     * before.
+     */
+    public static OpeningBook build(MovePickerInterface picker, Rollout rollout, int numGames,
+                                    int turns) {
+        if (turns < 1 || numGames < 1) {
+            throw new BackgammonError("A book needs at least one turn and one game per play.");
+        }
+        List<Entry> entries = new ArrayList<>();
+        List<PositionSnapshot> positions = new ArrayList<>();
+        for (Side side : List.of(Side.WHITE, Side.BLACK)) {
+            positions.add(new State(side, 1, 2).snapshot());
+        }
+        for (int turn = 0; turn < turns; turn++) {
+            List<PositionSnapshot> next = new ArrayList<>();
+            for (PositionSnapshot position : positions) {
+                for (int outcome = 0; outcome < Dice.NUM_OUTCOMES; outcome++) {
+                    State state = position.toState();
+                    state.setDice(Dice.outcomeFirst(outcome), Dice.outcomeSecond(outcome));
+                    Entry entry = bookPlay(state, outcome, picker, rollout, numGames);
+                    entries.add(entry);
+                    if (!state.gameOver()) {
+                        next.add(state.snapshot());
+                    }
+                }
+            }
+            positions = next;
+        }
+        return fromEntries(entries);
+    }
+
+    /**
+     * Returns the entry of STATE, at the start of a turn with the dice OUTCOME, making the play
+     * PICKER chooses in STATE, and estimating its equity by NUMGAMES games of ROLLOUT.
+     */
+    private static Entry bookPlay(State state, int outcome, MovePickerInterface picker,
+                                  Rollout rollout, int numGames) {
+        Side side = state.getCurrentSide();
+        long key = state.zobristKey();
+        int[] moves = new int[PlayGenerator.MAX_PLAY_LENGTH];
+        int length = 0;
+        while (state.getCurrentSide() == side && !state.gameOver()) {
+            Move move = picker.selectMove(state, state.getLegalMoves());
+            moves[length++] = move.toPacked();
+            state.makeMove(move);
+        }
+        double equity = state.gameOver() ? Evaluator.terminalValue(state, side)
+                : rollout.rollout(state.snapshot(), side, 0, numGames).mean();
+        return new Entry(key, outcome, Arrays.copyOf(moves, length), (float) equity);
+    }
+
+    /** Returns a book of ENTRIES. */
+    private static OpeningBook fromEntries(List<Entry> entries) {
+        entries.sort((a, b) -> a._key != b._key ? Long.compare(a._key, b._key)
+                : Integer.compare(a._outcome, b._outcome));
+        int size = entries.size();
+        long[] keys = new long[size];
+        byte[] outcomes = new byte[size];
+        byte[] lengths = new byte[size];
+        int[] moves = new int[size * PlayGenerator.MAX_PLAY_LENGTH];
+        float[] equities = new float[size];
+        int numEntries = 0;
+        for (Entry entry : entries) {
+            if (numEntries > 0 && keys[numEntries - 1] == entry._key
+                    && outcomes[numEntries - 1] == entry._outcome) {
+                /* The same position was reached twice, and booked the same play both times. */
+                continue;
+            }
+            keys[numEntries] = entry._key;
+            outcomes[numEntries] = (byte) entry._outcome;
+            lengths[numEntries] = (byte) entry._moves.length;
+            System.arraycopy(entry._moves, 0, moves, numEntries * PlayGenerator.MAX_PLAY_LENGTH,
+                             entry._moves.length);
+            equities[numEntries] = entry._equity;
+            numEntries += 1;
+        }
+        return new OpeningBook(Arrays.copyOf(keys, numEntries),
+                               Arrays.copyOf(outcomes, numEntries),
+                               Arrays.copyOf(lengths, numEntries),
+                               Arrays.copyOf(moves, numEntries * PlayGenerator.MAX_PLAY_LENGTH),
+                               Arrays.copyOf(equities, numEntries));
+    }
+
+    /** Returns the book stored in FILE by write. */
+    public static OpeningBook read(Path file) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != FILE_MAGIC) {
+                throw new BackgammonError("%s is not an opening book.", file);
+            }
+            int size = data.readInt();
+            if (size < 0 || size > MAX_ENTRIES) {
+                throw new BackgammonError("The opening book %s is damaged.", file);
+            }
+            long[] keys = new long[size];
+            byte[] outcomes = new byte[size];
+            byte[] lengths = new byte[size];
+            int[] moves = new int[size * PlayGenerator.MAX_PLAY_LENGTH];
+            float[] equities = new float[size];
+            for (int entry = 0; entry < size; entry++) {
+                keys[entry] = data.readLong();
+                outcomes[entry] = data.readByte();
+                lengths[entry] = data.readByte();
+                if (lengths[entry] < 0 || lengths[entry] > PlayGenerator.MAX_PLAY_LENGTH) {
+                    throw new BackgammonError("The opening book %s is damaged.", file);
+                }
+                for (int i = 0; i < lengths[entry]; i++) {
+                    moves[entry * PlayGenerator.MAX_PLAY_LENGTH + i] = data.readInt();
+                }
+                equities[entry] = data.readFloat();
+            }
+            return new OpeningBook(keys, outcomes, lengths, moves, equities);
+        }
+    }
+
+    /** Store me in FILE, replacing it atomically. */
+    public void write(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(FILE_MAGIC);
+            data.writeInt(size());
+            for (int entry = 0; entry < size(); entry++) {
+                data.writeLong(_keys[entry]);
+                data.writeByte(_outcomes[entry]);
+                data.writeByte(_lengths[entry]);
+                for (int i = 0; i < _lengths[entry]; i++) {
+                    data.writeInt(packedMove(entry, i));
+                }
+                data.writeFloat(_equities[entry]);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Returns my number of entries. */
+    public int size() {
+        return _keys.length;
+    }
+
+    /**
+     * Returns the entry of STATE, which must be at the start of a turn, or -1 if I have none.
+     */
+    public int lookup(State state) {
+        int outcome = state.turnStartOutcome();
+        if (outcome < 0) {
+            return -1;
+        }
+        long key = state.zobristKey();
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int order = _keys[middle] != key ? Long.compare(_keys[middle], key)
+                    : Integer.compare(_outcomes[middle], outcome);
+            if (order == 0) {
+                return middle;
+            } else if (order < 0) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the number of moves of the play of ENTRY. */
+    public int playLength(int entry) {
+        return _lengths[entry];
+    }
+
+    /** Returns the encoded move I (see PackedMove) of the play of ENTRY. */
+    public int packedMove(int entry, int i) {
+        return _moves[entry * PlayGenerator.MAX_PLAY_LENGTH + i];
+    }
+
+    /** Returns the equity of the play of ENTRY for the side making it. */
+    public double equity(int entry) {
+        return _equities[entry];
+    }
+
+    /** A booked play, while a book is built. */
+    private static final class Entry {
+
+        Entry(long key, int outcome, int[] moves, float equity) {
+            _key = key;
+            _outcome = outcome;
+            _moves = moves;
+            _equity = equity;
+        }
+
+        private final long _key;
+        private final int _outcome;
+        private final int[] _moves;
+        private final float _equity;
+    }
+
+    /** Identifies a book file. */
+    private static final int FILE_MAGIC = 0x424F4F4B;
+    /** The largest number of entries a book read from a file may have. */
+    private static final int MAX_ENTRIES = 1 << 24;
+
+    /** The key, outcome, play length, moves and equity of every entry, in order. */
+    private final long[] _keys;
+    private final byte[] _outcomes;
+    private final byte[] _lengths;
+    private final int[] _moves;
+    private final float[] _equities;
+}
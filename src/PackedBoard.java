@@ -0,0 +1,441 @@
+/**
+ * A compact alternative to Board, storing an entire position in two longs and an int. Each of
+ * the 24 board positions is packed into a 5-bit field, where the low four bits hold the number of
+ * pieces and the high bit is set iff those pieces are black. Positions 0-11 live in _lowPoints,
+ * positions 12-23 in _highPoints. The escaped and captured counters of either side are packed into
+ * 4-bit fields of _offBoard, in the same order as the trailing entries of an extended setup.
+ * <p>
+ * The public operations mirror those of Board, but the occupancy based queries (such as
+ * allPiecesInEndZone and isLastPieceOnBoard) are answered with a constant number of bit
+ * operations instead of a scan over the board.
+ */
+public class PackedBoard {
+
+    /** Construct a PackedBoard from its raw packed fields. */
+    PackedBoard(long lowPoints, long highPoints, int offBoard) {
+        _lowPoints = lowPoints;
+        _highPoints = highPoints;
+        _offBoard = offBoard;
+    }
+
+    /** Construct a PackedBoard holding the default configuration (standard game of Backgammon). */
+    public PackedBoard() {
+        this(new Board());
+    }
+
+    /** Construct a PackedBoard holding the same position as BOARD. */
+    public PackedBoard(Board board) {
+        copyFrom(board);
+    }
+
+    /**
+     * Construct a PackedBoard from an EXTENDEDSETUP array, where the last four entries represent
+     * the number of white escaped, black escaped, white captured, and black captured pieces,
+     * respectively.
+     */
+    public static PackedBoard fromExtendedSetup(int[] extendedSetup) {
+        return new PackedBoard(Board.fromExtendedSetup(extendedSetup));
+    }
+
+    /** Return a Board instance holding the same position as me. */
+    public Board toBoard() {
+        return Board.fromExtendedSetup(toExtendedSetup());
+    }
+
+    /**
+     * Return an extended setup array describing my position. The last four entries represent the
+     * number of white escaped, black escaped, white captured, and black captured pieces,
+     * respectively.
+     */
+    public int[] toExtendedSetup() {
+        int[] extendedSetup = new int[Structure.BOARD_SIZE + 4];
+        for (int i = 0; i < Structure.BOARD_SIZE; i++) {
+            extendedSetup[i] = getField(i);
+        }
+        extendedSetup[Structure.WHITE_ESCAPE_INDEX] = numEscaped(Side.WHITE);
+        extendedSetup[Structure.BLACK_ESCAPE_INDEX] = numEscaped(Side.BLACK);
+        extendedSetup[Structure.WHITE_CAPTURED_INDEX] = numCaptured(Side.WHITE);
+        extendedSetup[Structure.BLACK_CAPTURED_INDEX] = numCaptured(Side.BLACK);
+        return extendedSetup;
+    }
+
+    /** Overwrite my position with the one held by BOARD, without allocating. */
+    void copyFrom(Board board) {
+        _lowPoints = 0;
+        _highPoints = 0;
+        _offBoard = 0;
+        for (int i = 0; i < Structure.BOARD_SIZE; i++) {
+            setField(i, board.get(BoardIndex.make(i)));
+        }
+        for (Side side : SIDES) {
+            setNumEscaped(side, board.numEscaped(side));
+            setNumCaptured(side, board.numCaptured(side));
+        }
+    }
+
+    /** Return a copy of me. */
+    public PackedBoard copy() {
+        return new PackedBoard(_lowPoints, _highPoints, _offBoard);
+    }
+
+    /** Return the number of pieces (negative indicating black) at a given BOARDINDEX. */
+    public int get(BoardIndex boardIndex) {
+        return getField(boardIndex.getIndex());
+    }
+
+    /** Set the number of pieces at a given BOARDINDEX. Negative values indicate black pieces. */
+    public void set(BoardIndex boardIndex, int val) {
+        if (Math.abs(val) > Structure.MAX_NUM_PIECES_PER_BOARD_POSITION) {
+            throw new BackgammonError("Number of pieces: %d exceeds the number of allowable "
+                                              + "pieces for board positions. The maximum "
+                                              + "is: %d",
+                                      val,
+                                      Structure.MAX_NUM_PIECES_PER_BOARD_POSITION);
+        }
+        setField(boardIndex.getIndex(), val);
+    }
+
+    /** Returns true iff there are no pieces at BOARDINDEX. */
+    public boolean empty(BoardIndex boardIndex) {
+        return rawField(boardIndex.getIndex()) == 0;
+    }
+
+    /** Returns true iff the position at BOARDINDEX is occupied. */
+    public boolean occupied(BoardIndex boardIndex) {
+        return !empty(boardIndex);
+    }
+
+    /** Returns true iff the position at BOARDINDEX is fully occupied. */
+    public boolean full(BoardIndex boardIndex) {
+        return (rawField(boardIndex.getIndex()) & COUNT_MASK)
+                == Structure.MAX_NUM_PIECES_PER_BOARD_POSITION;
+    }
+
+    /** Returns true iff there is exactly one piece at BOARDINDEX, regardless of color. */
+    public boolean single(BoardIndex boardIndex) {
+        return (rawField(boardIndex.getIndex()) & COUNT_MASK) == 1;
+    }
+
+    /** Returns the number of escaped pieces of the player specified by SIDE. */
+    public int numEscaped(Side side) {
+        return getOffBoardField(escapedShift(side));
+    }
+
+    /** Returns the number of captured pieces of the player specified by SIDE. */
+    public int numCaptured(Side side) {
+        return getOffBoardField(capturedShift(side));
+    }
+
+    /**
+     * Returns true iff at least one of the pieces of the player specified by SIDE has been
+     * captured.
+     */
+    public boolean hasCapturedPiece(Side side) {
+        return numCaptured(side) > 0;
+    }
+
+    public void setNumEscaped(Side side, int numEscaped) {
+        setOffBoardField(escapedShift(side), numEscaped);
+    }
+
+    public void setNumCaptured(Side side, int numCaptured) {
+        setOffBoardField(capturedShift(side), numCaptured);
+    }
+
+    /**
+     * Increments the number of pieces at a given BOARDINDEX, which must either be empty or occupied
+     * by SIDE.
+     */
+    public void increment(BoardIndex boardIndex, Side side) {
+        side.ensureDetermined();
+        int delta = side.isWhite() ? 1 : -1;
+        set(boardIndex, get(boardIndex) + delta);
+    }
+
+    /**
+     * Decrements the number of pieces at a given BOARDINDEX, maintaining the color of the pieces at
+     * that index. Can only be called on non-empty positions.
+     */
+    public void decrement(BoardIndex boardIndex) {
+        if (empty(boardIndex)) {
+            throw new BackgammonError("POSITION EMPTY:This method cannot be applied to an empty "
+                                              + "position.");
+        }
+        int val = get(boardIndex);
+        setField(boardIndex.getIndex(), val > 0 ? val - 1 : val + 1);
+    }
+
+    /**
+     * Returns true iff the position at BOARDINDEX is occupied by pieces of SIDE. If the index is
+     * empty, always returns false.
+     */
+    public boolean occupiedBy(Side side, BoardIndex boardIndex) {
+        side.ensureDetermined();
+        int field = rawField(boardIndex.getIndex());
+        return field != 0 && ((field & BLACK_BIT) != 0) == side.isBlack();
+    }
+
+    /**
+     * Returns the side which occupies the given BOARDINDEX. Returns UNDETERMINED if the position is
+     * empty.
+     */
+    public Side occupiedBy(BoardIndex boardIndex) {
+        int field = rawField(boardIndex.getIndex());
+        if (field == 0) {
+            return Side.UNDETERMINED;
+        }
+        return (field & BLACK_BIT) != 0 ? Side.BLACK : Side.WHITE;
+    }
+
+    /**
+     * Returns true iff all the pieces of the player designated by SIDE have managed to escape the
+     * board.
+     */
+    public boolean allEscaped(Side side) {
+        return numEscaped(side) == Structure.NUM_PIECES_PER_SIDE;
+    }
+
+    /**
+     * Return the total number of pieces (including captured and escaped pieces) for the side
+     * specified by SIDE. This number should be invariant over the course of a game.
+     */
+    int numPieces(Side side) {
+        side.ensureDetermined();
+        long sideBits = side.isWhite() ? 0 : ALL_BLACK_BITS;
+        return piecesOf(_lowPoints, sideBits) + piecesOf(_highPoints, sideBits)
+                + numCaptured(side) + numEscaped(side);
+    }
+
+    /**
+     * Remove the piece at BOARDINDEX, which must be single, and increment the number of captured
+     * pieces for the appropriate side.
+     */
+    public void moveToCaptured(BoardIndex boardIndex) {
+        if (!single(boardIndex)) {
+            throw new BackgammonError("There must be exactly one piece at the index to move it "
+                                              + "to its corresponding capture index.");
+        }
+        Side capturedSide = occupiedBy(boardIndex);
+        setNumCaptured(capturedSide, numCaptured(capturedSide) + 1);
+    }
+
+    /**
+     * Returns true iff the player (designated by SIDE) has no pieces behind the position
+     * BOARDINDEX on the board. White moves towards higher indices, so its pieces behind
+     * BOARDINDEX are at lower indices, and vice versa for black.
+     */
+    public boolean isLastPieceOnBoard(BoardIndex boardIndex, Side side) {
+        int mask = occupancyMask(side);
+        int index = boardIndex.getIndex();
+        if (side.isWhite()) {
+            return (mask & ((1 << index) - 1)) == 0;
+        }
+        return (mask >>> (index + 1)) == 0;
+    }
+
+    /**
+     * Returns true iff all of a player's pieces on the board are in the end zone (final 6
+     * positions). The player that is checked for is given by SIDE.
+     */
+    public boolean allPiecesInEndZone(Side side) {
+        int endZone = side.isWhite() ? WHITE_END_ZONE_MASK : BLACK_END_ZONE_MASK;
+        return (occupancyMask(side) & ~endZone) == 0;
+    }
+
+    /**
+     * Returns true iff BOARDINDEX can be moved to by the player specified by SIDE. That is, the
+     * position is empty, contains only one of the opponent's pieces (indicating it can be
+     * captured), or is not fully occupied by pieces of the specified player.
+     */
+    boolean positionCanBeMovedToBy(BoardIndex boardIndex, Side side) {
+        int val = getField(boardIndex.getIndex());
+        if (side.isWhite()) {
+            return val >= -1 && val < Structure.MAX_NUM_PIECES_PER_BOARD_POSITION;
+        }
+        return val <= 1 && val > -Structure.MAX_NUM_PIECES_PER_BOARD_POSITION;
+    }
+
+    /**
+     * Return a bitmask of the board positions occupied by SIDE, where bit i is set iff board
+     * index i holds at least one of SIDE's pieces.
+     */
+    public int occupancyMask(Side side) {
+        side.ensureDetermined();
+        return occupancyMask(_lowPoints, side) | (occupancyMask(_highPoints, side) << POINTS_PER_WORD);
+    }
+
+    /** The raw packed fields of points 0-11. */
+    long lowPoints() {
+        return _lowPoints;
+    }
+
+    /** The raw packed fields of points 12-23. */
+    long highPoints() {
+        return _highPoints;
+    }
+
+    /** The raw packed escaped and captured counters. */
+    int offBoard() {
+        return _offBoard;
+    }
+
+    /** Returns the Zobrist key of my position, identical to that of the equivalent Board. */
+    public long zobristKey() {
+        long key = 0;
+        for (int i = 0; i < Structure.BOARD_SIZE; i++) {
+            key ^= Zobrist.point(i, getField(i));
+        }
+        for (Side side : SIDES) {
+            key ^= Zobrist.escaped(side, numEscaped(side)) ^ Zobrist.captured(side, numCaptured(side));
+        }
+        return key;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PackedBoard otherBoard)) {
+            return false;
+        }
+        return _lowPoints == otherBoard._lowPoints && _highPoints == otherBoard._highPoints
+                && _offBoard == otherBoard._offBoard;
+    }
+
+    @Override
+    public int hashCode() {
+        long mixed = _lowPoints * 0x9E3779B97F4A7C15L ^ Long.rotateLeft(_highPoints, 29) ^ _offBoard;
+        return Long.hashCode(mixed);
+    }
+
+    /** Return a (semi) readable representation of the piece configuration. */
+    @Override
+    public String toString() {
+        return toBoard().toString();
+    }
+
+    /** Return a compact string representation of the board. */
+    public String toStringConcise() {
+        return toBoard().toStringConcise();
+    }
+
+    /** Return the signed number of pieces at the board position INDEX. */
+    int getField(int index) {
+        int field = rawField(index);
+        int count = field & COUNT_MASK;
+        return (field & BLACK_BIT) != 0 ? -count : count;
+    }
+
+    /** Return the raw 5-bit field of the board position INDEX. */
+    private int rawField(int index) {
+        if (index < POINTS_PER_WORD) {
+            return (int) (_lowPoints >>> (index * BITS_PER_POINT)) & FIELD_MASK;
+        }
+        return (int) (_highPoints >>> ((index - POINTS_PER_WORD) * BITS_PER_POINT)) & FIELD_MASK;
+    }
+
+    /** Store the signed number of pieces VAL at the board position INDEX. */
+    private void setField(int index, int val) {
+        long field = val < 0 ? (BLACK_BIT | -val) : val;
+        if (index < POINTS_PER_WORD) {
+            int shift = index * BITS_PER_POINT;
+            _lowPoints = (_lowPoints & ~((long) FIELD_MASK << shift)) | (field << shift);
+        } else {
+            int shift = (index - POINTS_PER_WORD) * BITS_PER_POINT;
+            _highPoints = (_highPoints & ~((long) FIELD_MASK << shift)) | (field << shift);
+        }
+    }
+
+    private int getOffBoardField(int shift) {
+        return (_offBoard >>> shift) & COUNT_MASK;
+    }
+
+    private void setOffBoardField(int shift, int val) {
+        if (val < 0 || val > Structure.NUM_PIECES_PER_SIDE) {
+            throw new BackgammonError(
+                    "Number of pieces: %d exceeds the number of pieces per " + "side: %d",
+                    val,
+                    Structure.NUM_PIECES_PER_SIDE);
+        }
+        _offBoard = (_offBoard & ~(COUNT_MASK << shift)) | (val << shift);
+    }
+
+    /** The shift of the escaped counter of SIDE within _offBoard. */
+    private static int escapedShift(Side side) {
+        side.ensureDetermined();
+        return side.isWhite() ? 0 : COUNT_BITS;
+    }
+
+    /** The shift of the captured counter of SIDE within _offBoard. */
+    private static int capturedShift(Side side) {
+        side.ensureDetermined();
+        return side.isWhite() ? 2 * COUNT_BITS : 3 * COUNT_BITS;
+    }
+
+    /**
+     * Return a 12-bit mask of the points in WORD occupied by SIDE. Adding COUNT_MASK to every
+     * count sets a field's colour bit iff its count is non-zero, without carrying into the next
+     * field.
+     */
+    private static int occupancyMask(long word, Side side) {
+        long nonEmpty = ((word & ALL_COUNT_BITS) + ALL_COUNT_BITS) & ALL_BLACK_BITS;
+        long occupied = side.isWhite() ? nonEmpty & ~word : nonEmpty & word;
+        return (int) Long.compress(occupied, ALL_BLACK_BITS);
+    }
+
+    /** Return the number of pieces in WORD whose colour bit equals SIDEBITS. */
+    private static int piecesOf(long word, long sideBits) {
+        int total = 0;
+        for (int i = 0; i < POINTS_PER_WORD; i++, word >>>= BITS_PER_POINT) {
+            if ((word & BLACK_BIT) == (sideBits & BLACK_BIT)) {
+                total += (int) (word & COUNT_MASK);
+            }
+        }
+        return total;
+    }
+
+    /** Replicate the 5-bit FIELD across all points of a word. */
+    private static long replicate(long field) {
+        long word = 0;
+        for (int i = 0; i < POINTS_PER_WORD; i++) {
+            word |= field << (i * BITS_PER_POINT);
+        }
+        return word;
+    }
+
+    /** Return a mask with the bits of board indices START (inclusive) to END (inclusive) set. */
+    private static int rangeMask(int start, int end) {
+        return ((1 << (end - start + 1)) - 1) << start;
+    }
+
+    /** The two determined sides. */
+    private static final Side[] SIDES = { Side.WHITE, Side.BLACK };
+
+    /** The number of bits used to store a single board position. */
+    private static final int BITS_PER_POINT = 5;
+    /** The number of board positions stored in each long. */
+    private static final int POINTS_PER_WORD = Structure.BOARD_SIZE / 2;
+    /** The number of bits used to store an escaped or captured counter. */
+    private static final int COUNT_BITS = 4;
+    /** The mask of a piece count. */
+    private static final int COUNT_MASK = (1 << COUNT_BITS) - 1;
+    /** The bit marking a position as occupied by black. */
+    private static final int BLACK_BIT = 1 << COUNT_BITS;
+    /** The mask of an entire packed position. */
+    private static final int FIELD_MASK = (1 << BITS_PER_POINT) - 1;
+    /** The count bits of every position in a word. */
+    private static final long ALL_COUNT_BITS = replicate(COUNT_MASK);
+    /** The colour bits of every position in a word. */
+    private static final long ALL_BLACK_BITS = replicate(BLACK_BIT);
+    /** The occupancy mask of white's end zone. */
+    private static final int WHITE_END_ZONE_MASK = rangeMask(Structure.END_ZONE_START_INDEX_WHITE,
+                                                             Structure.END_ZONE_END_INDEX_WHITE);
+    /** The occupancy mask of black's end zone. */
+    private static final int BLACK_END_ZONE_MASK = rangeMask(Structure.END_ZONE_START_INDEX_BLACK,
+                                                             Structure.END_ZONE_END_INDEX_BLACK);
+
+    /** The packed positions 0-11. */
+    private long _lowPoints;
+    /** The packed positions 12-23. */
+    private long _highPoints;
+    /** The packed escaped and captured counters of either side. */
+    private int _offBoard;
+}
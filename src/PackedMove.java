@@ -0,0 +1,91 @@
+/**
+ * Static helpers encoding a move as a single int, so that moves can be generated, stored and
+ * compared without touching Move objects. The bits of an encoded move are, from least to most
+ * significant: the roll (3 bits), the start index (5 bits), the target index (5 bits), the kind
+ * of move (2 bits) and the side making the move (1 bit, set iff black). Fields that do not apply
+ * to a kind of move, such as the start index of a reentry move, are zero. Every encoded move maps
+ * onto exactly one of the canonical Move instances, which remain the view handed to a
+ * MovePickerInterface.
+ */
+public class PackedMove {
+    /** The kind of a move between two board positions. */
+    static final int BOARD = 0;
+    /** The kind of a move taking a piece off the board. */
+    static final int ESCAPE = 1;
+    /** The kind of a move bringing a captured piece back onto the board. */
+    static final int REENTRY = 2;
+    /** The kind of a pass. */
+    static final int PASS_KIND = 3;
+
+    /** Returns the encoded move of a piece from START to TARGET using ROLL. */
+    static int board(int start, int target, int roll) {
+        return roll | (start << START_SHIFT) | (target << TARGET_SHIFT);
+    }
+
+    /** Returns the encoded move of a piece of SIDE escaping from START using ROLL. */
+    static int escape(int start, int roll, Side side) {
+        return roll | (start << START_SHIFT) | (ESCAPE << KIND_SHIFT) | sideBit(side);
+    }
+
+    /** Returns the encoded move of a captured piece of SIDE reentering at TARGET using ROLL. */
+    static int reentry(int target, int roll, Side side) {
+        return roll | (target << TARGET_SHIFT) | (REENTRY << KIND_SHIFT) | sideBit(side);
+    }
+
+    /** Returns the kind of MOVE: one of BOARD, ESCAPE, REENTRY or PASS_KIND. */
+    static int kind(int move) {
+        return (move >>> KIND_SHIFT) & KIND_MASK;
+    }
+
+    /** Returns the start index of MOVE. Only meaningful for board and escape moves. */
+    static int start(int move) {
+        return (move >>> START_SHIFT) & INDEX_MASK;
+    }
+
+    /** Returns the target index of MOVE. Only meaningful for board and reentry moves. */
+    static int target(int move) {
+        return (move >>> TARGET_SHIFT) & INDEX_MASK;
+    }
+
+    /** Returns the roll used by MOVE. Zero for a pass. */
+    static int roll(int move) {
+        return move & ROLL_MASK;
+    }
+
+    /** Returns the side making MOVE. Only meaningful for escape and reentry moves. */
+    static Side side(int move) {
+        return (move & SIDE_BIT) != 0 ? Side.BLACK : Side.WHITE;
+    }
+
+    /** Returns the canonical Move instance described by MOVE. */
+    static Move toMove(int move) {
+        return switch (kind(move)) {
+            case BOARD -> BoardMove.move(BoardIndex.make(start(move)),
+                                         BoardIndex.make(target(move)),
+                                         roll(move));
+            case ESCAPE -> EscapeMove.move(BoardIndex.make(start(move)), roll(move), side(move));
+            case REENTRY -> ReentryMove.move(roll(move), side(move));
+            default -> PassMove.PASS;
+        };
+    }
+
+    /** Returns a readable string representing MOVE. */
+    static String toString(int move) {
+        return toMove(move).toString();
+    }
+
+    private static int sideBit(Side side) {
+        return side.isBlack() ? SIDE_BIT : 0;
+    }
+
+    private static final int ROLL_MASK = 0x7;
+    private static final int START_SHIFT = 3;
+    private static final int TARGET_SHIFT = 8;
+    private static final int INDEX_MASK = 0x1F;
+    private static final int KIND_SHIFT = 13;
+    private static final int KIND_MASK = 0x3;
+    private static final int SIDE_BIT = 1 << 15;
+
+    /** The encoded pass. */
+    static final int PASS = PASS_KIND << KIND_SHIFT;
+}
@@ -8,6 +8,11 @@ public class PassMove extends Move {
         return "PASS";
     }
 
+    @Override
+    int toPacked() {
+        return PackedMove.PASS;
+    }
+
     public PassMove move() {
         return PASS;
     }
@@ -0,0 +1,19 @@
+/**
+ * Evaluates a position by the race alone: the side with fewer pips left to travel is ahead, by
+ * the share of all remaining pips its opponent has to make up. Cheap, and a sensible default
+ * leaf evaluator for a search.
+ */
+public class PipCountEvaluator implements Evaluator {
+
+    @Override
+    public double evaluate(State state, Side side) {
+        if (state.gameOver()) {
+            return Evaluator.terminalValue(state, side);
+        }
+        Board board = state.getBoard();
+        int ownPips = board.pipCount(side);
+        int opponentPips = board.pipCount(side.opponent());
+        /* Never reaches WIN or LOSS, which are reserved for finished games. */
+        return (double) (opponentPips - ownPips) / (opponentPips + ownPips + 1);
+    }
+}
@@ -0,0 +1,295 @@
+import java.util.Arrays;
+
+/**
+ * Generates every legal full play for the dice roll of a State. A play is the sequence of moves
+ * a player makes in one turn: up to two moves, or up to four in the case of a Pasch, followed by
+ * a pass if the remaining rolls cannot be used. The generator enforces that as many rolls as
+ * possible are used and that, if only one of two distinct rolls can be used, the larger one is
+ * used. Plays reaching the same final position are collapsed into one.
+ * <p>
+ * A generator owns all of its buffers and reuses them across calls to generate, so that it
+ * allocates nothing once its buffers have grown to fit the largest roll seen. The contents of the
+ * buffers are only valid until the next call to generate.
+ */
+public class PlayGenerator {
+    /** The maximum number of moves of a play, including a trailing pass. */
+    public static final int MAX_PLAY_LENGTH = 5;
+
+    /** Construct a play generator with empty buffers. */
+    public PlayGenerator() {
+        _moves = new int[INITIAL_CAPACITY * MAX_PLAY_LENGTH];
+        _lengths = new int[INITIAL_CAPACITY];
+        _lowPoints = new long[INITIAL_CAPACITY];
+        _highPoints = new long[INITIAL_CAPACITY];
+        _offBoard = new int[INITIAL_CAPACITY];
+        _keys = new long[INITIAL_CAPACITY];
+        _slots = new int[2 * INITIAL_CAPACITY];
+        _slotStamps = new int[2 * INITIAL_CAPACITY];
+        _candidates = new MoveList[MAX_PLAY_LENGTH];
+        for (int i = 0; i < MAX_PLAY_LENGTH; i++) {
+            _candidates[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Generate all legal plays available to the active player of STATE, which must be at the start
+     * of a turn with its remaining rolls set. STATE is returned to its original configuration
+     * before this method returns. Returns the number of distinct plays, which is at least one, as a
+     * player who cannot move has a play consisting of a single pass.
+     */
+    public int generate(State state) {
+        if (state.gameOver() || !state.hasRemainingRolls()) {
+            throw new BackgammonError("Plays can only be generated at the start of a turn.");
+        }
+        _numPlays = 0;
+        _maxCheckerMoves = 0;
+        nextStamp();
+        int numRolls = state.numRemainingRolls();
+        int rollMask = state.remainingRollMask();
+        search(state, 0, numRolls);
+        if (_maxCheckerMoves == 1 && numRolls == 2 && Integer.bitCount(rollMask) == 2) {
+            keepOnlyRoll(31 - Integer.numberOfLeadingZeros(rollMask));
+        }
+        return _numPlays;
+    }
+
+    /** Returns the number of plays found by the last call to generate. */
+    public int numPlays() {
+        return _numPlays;
+    }
+
+    /** Returns the number of moves (including a trailing pass) making up PLAY. */
+    public int playLength(int play) {
+        return _lengths[play];
+    }
+
+    /** Returns the I-th move of PLAY. */
+    public Move move(int play, int i) {
+        return PackedMove.toMove(packedMove(play, i));
+    }
+
+    /** Returns the I-th move of PLAY, encoded as described in PackedMove. */
+    public int packedMove(int play, int i) {
+        return _moves[play * MAX_PLAY_LENGTH + i];
+    }
+
+    /** Make every move of PLAY on STATE. Afterwards, either the turn has passed or the game is over. */
+    public void makePlay(State state, int play) {
+        for (int i = 0; i < _lengths[play]; i++) {
+            state.makeMove(packedMove(play, i));
+        }
+    }
+
+    /** Undo every move of PLAY, which must be the most recent play made on STATE. */
+    public void unmakePlay(State state, int play) {
+        for (int i = 0; i < _lengths[play]; i++) {
+            state.unmakeMove();
+        }
+    }
+
+    /** Returns the position reached by PLAY. */
+    public PackedBoard resultingBoard(int play) {
+        return new PackedBoard(_lowPoints[play], _highPoints[play], _offBoard[play]);
+    }
+
+    /** Returns the Zobrist key of the board reached by PLAY. See Board.zobristKey(). */
+    public long resultingKey(int play) {
+        return _keys[play];
+    }
+
+    /** Returns a readable representation of PLAY. */
+    public String toString(int play) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < _lengths[play]; i++) {
+            sb.append(i == 0 ? "" : ", ").append(move(play, i));
+        }
+        return sb.append("]").toString();
+    }
+
+    /**
+     * Explore all move sequences from STATE, where DEPTH moves have been made so far in a turn
+     * which started with NUMROLLS remaining rolls, and record those that end the turn.
+     */
+    private void search(State state, int depth, int numRolls) {
+        if (state.gameOver()) {
+            /* Winning ends the turn, no matter how many rolls remain unused. */
+            record(state, depth, numRolls, false);
+            return;
+        }
+        if (!state.hasRemainingRolls()) {
+            record(state, depth, depth, false);
+            return;
+        }
+        if (state.legalMoveList().contains(PackedMove.PASS)) {
+            record(state, depth, depth, true);
+            return;
+        }
+        /* Making moves modifies the legal moves, so iterate over a copy of them. */
+        MoveList candidates = _candidates[depth];
+        candidates.copyFrom(state.legalMoveList());
+        for (int i = 0; i < candidates.size(); i++) {
+            int move = candidates.get(i);
+            _path[depth] = move;
+            state.makeMove(move);
+            search(state, depth + 1, numRolls);
+            state.unmakeMove();
+        }
+    }
+
+    /**
+     * Record the sequence of DEPTH moves in _path as a play that uses CHECKERMOVES rolls,
+     * followed by a pass iff PASS. Plays using fewer rolls than the best found so far are
+     * discarded, as are plays reaching an already recorded position.
+     */
+    private void record(State state, int depth, int checkerMoves, boolean pass) {
+        if (checkerMoves < _maxCheckerMoves) {
+            return;
+        }
+        if (checkerMoves > _maxCheckerMoves) {
+            /* All plays found so far use too few rolls. */
+            _maxCheckerMoves = checkerMoves;
+            _numPlays = 0;
+            nextStamp();
+        }
+        long key = state.getBoard().zobristKey();
+        _scratch.copyFrom(state.getBoard());
+        int slot = findSlot(key, _scratch);
+        if (_slotStamps[slot] == _stamp) {
+            return;
+        }
+        ensureCapacity(_numPlays + 1);
+        int play = _numPlays;
+        for (int i = 0; i < depth; i++) {
+            _moves[play * MAX_PLAY_LENGTH + i] = _path[i];
+        }
+        if (pass) {
+            _moves[play * MAX_PLAY_LENGTH + depth] = PackedMove.PASS;
+        }
+        _lengths[play] = pass ? depth + 1 : depth;
+        _lowPoints[play] = _scratch.lowPoints();
+        _highPoints[play] = _scratch.highPoints();
+        _offBoard[play] = _scratch.offBoard();
+        _keys[play] = key;
+        _slotStamps[slot] = _stamp;
+        _slots[slot] = play;
+        _numPlays += 1;
+        if (2 * _numPlays > _slots.length) {
+            rehash();
+        }
+    }
+
+    /**
+     * Returns the slot of the dedupe table holding a play that reaches BOARD, whose Zobrist key
+     * is KEY, or the empty slot where such a play should be inserted.
+     */
+    private int findSlot(long key, PackedBoard board) {
+        int mask = _slots.length - 1;
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (_slotStamps[slot] == _stamp) {
+            int play = _slots[slot];
+            if (_lowPoints[play] == board.lowPoints() && _highPoints[play] == board.highPoints()
+                    && _offBoard[play] == board.offBoard()) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /** Double the size of the dedupe table and reinsert all recorded plays. */
+    private void rehash() {
+        _slots = new int[2 * _slots.length];
+        _slotStamps = new int[_slots.length];
+        nextStamp();
+        for (int play = 0; play < _numPlays; play++) {
+            int slot = findSlot(_keys[play], resultingBoard(play));
+            _slotStamps[slot] = _stamp;
+            _slots[slot] = play;
+        }
+    }
+
+    /**
+     * Discard all plays whose first move does not use ROLL. Only called when a single roll could
+     * be used, so every play consists of one move and possibly a pass.
+     */
+    private void keepOnlyRoll(int roll) {
+        boolean rollUsable = false;
+        for (int play = 0; play < _numPlays; play++) {
+            rollUsable |= PackedMove.roll(packedMove(play, 0)) == roll;
+        }
+        if (!rollUsable) {
+            return;
+        }
+        int kept = 0;
+        for (int play = 0; play < _numPlays; play++) {
+            if (PackedMove.roll(packedMove(play, 0)) == roll) {
+                System.arraycopy(_moves, play * MAX_PLAY_LENGTH, _moves, kept * MAX_PLAY_LENGTH,
+                                 MAX_PLAY_LENGTH);
+                _lengths[kept] = _lengths[play];
+                _lowPoints[kept] = _lowPoints[play];
+                _highPoints[kept] = _highPoints[play];
+                _offBoard[kept] = _offBoard[play];
+                _keys[kept] = _keys[play];
+                kept += 1;
+            }
+        }
+        _numPlays = kept;
+    }
+
+    /** Ensure my play buffers can hold at least NUMPLAYS plays. */
+    private void ensureCapacity(int numPlays) {
+        if (numPlays <= _lengths.length) {
+            return;
+        }
+        int capacity = 2 * _lengths.length;
+        _moves = Arrays.copyOf(_moves, capacity * MAX_PLAY_LENGTH);
+        _lengths = Arrays.copyOf(_lengths, capacity);
+        _lowPoints = Arrays.copyOf(_lowPoints, capacity);
+        _highPoints = Arrays.copyOf(_highPoints, capacity);
+        _offBoard = Arrays.copyOf(_offBoard, capacity);
+        _keys = Arrays.copyOf(_keys, capacity);
+    }
+
+    /** Invalidate every slot of the dedupe table in constant time. */
+    private void nextStamp() {
+        _stamp += 1;
+        if (_stamp == 0) {
+            Arrays.fill(_slotStamps, 0);
+            _stamp = 1;
+        }
+    }
+
+    /** The initial number of plays my buffers can hold. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** The encoded moves of every play, MAX_PLAY_LENGTH entries per play. */
+    private int[] _moves;
+    /** The number of moves of every play. */
+    private int[] _lengths;
+    /** The packed points 0-11 reached by every play. See PackedBoard. */
+    private long[] _lowPoints;
+    /** The packed points 12-23 reached by every play. See PackedBoard. */
+    private long[] _highPoints;
+    /** The packed escaped and captured counters reached by every play. See PackedBoard. */
+    private int[] _offBoard;
+    /** The Zobrist key of the board reached by every play. */
+    private long[] _keys;
+    /** The number of plays recorded. */
+    private int _numPlays;
+    /** The largest number of rolls used by any play found so far. */
+    private int _maxCheckerMoves;
+
+    /** An open-addressed table of play indices, keyed by the position each play reaches. */
+    private int[] _slots;
+    /** A slot of _slots is in use iff its stamp equals _stamp. */
+    private int[] _slotStamps;
+    /** The stamp marking the slots in use. */
+    private int _stamp;
+
+    /** The encoded moves made so far in the sequence being explored. */
+    private final int[] _path = new int[MAX_PLAY_LENGTH];
+    /** Copies of the legal moves at every depth of the sequence being explored. */
+    private final MoveList[] _candidates;
+    /** A board used to pack the positions reached, so that no board is allocated per play. */
+    private final PackedBoard _scratch = new PackedBoard(0, 0, 0);
+}
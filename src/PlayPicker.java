@@ -0,0 +1,81 @@
+import java.util.Set;
+
+/**
+ * A MovePickerInterface that decides on a whole play (see PlayGenerator) at once, and then hands
+ * out its moves one at a time. A play is chosen the first time a move is requested in a turn,
+ * on a private copy of the game's state, and every following request of that turn is answered
+ * from the chosen play, as long as the game is still in the position the play expects.
+ * Otherwise, a new play is chosen for the position at hand. A whole play can also be requested
+ * at once, through pickPlay.
+ */
+public abstract class PlayPicker implements PlayPickerInterface {
+
+    /**
+     * Returns the index of the play to make among the plays of PLAYS, which have just been
+     * generated for STATE. STATE is a private copy of the game's state, which may be modified as
+     * long as it is returned to its original configuration. Only called if there is more than
+     * one play to choose from.
+     */
+    protected abstract int selectPlay(State state, PlayGenerator plays);
+
+    /** Picking a play needs the state of the game, so this always throws. */
+    @Override
+    public Move selectMove(Set<Move> moves) {
+        throw new BackgammonError("A PlayPicker needs the state of the game to select a move.");
+    }
+
+    @Override
+    public int pickPlay(State state, PlayGenerator plays) {
+        return checkedPlay(plays.numPlays() == 1 ? 0
+                : selectPlay(state.snapshot().toState(), plays), plays.numPlays());
+    }
+
+    @Override
+    public Move selectMove(State state, Set<Move> moves) {
+        if (_nextMove >= _playLength || state.zobristKey() != _expectedKeys[_nextMove]
+                || !moves.contains(PackedMove.toMove(_plannedMoves[_nextMove]))) {
+            planPlay(state);
+        }
+        Move move = PackedMove.toMove(_plannedMoves[_nextMove]);
+        _nextMove += 1;
+        return move;
+    }
+
+    /** Choose the play to make from STATE, and remember its moves and the positions they expect. */
+    private void planPlay(State state) {
+        State copy = state.snapshot().toState();
+        int numPlays = _rootPlays.generate(copy);
+        int play = checkedPlay(numPlays == 1 ? 0 : selectPlay(copy, _rootPlays), numPlays);
+        _playLength = _rootPlays.playLength(play);
+        for (int i = 0; i < _playLength; i++) {
+            int move = _rootPlays.packedMove(play, i);
+            _plannedMoves[i] = move;
+            _expectedKeys[i] = copy.zobristKey();
+            copy.makeMove(move);
+        }
+        _nextMove = 0;
+    }
+
+    /** Returns PLAY, after checking that it is one of NUMPLAYS plays. */
+    private static int checkedPlay(int play, int numPlays) {
+        if (play < 0 || play >= numPlays) {
+            throw new BackgammonError("Selected play " + play + " of " + numPlays + " plays.");
+        }
+        return play;
+    }
+
+    /** The generator of the plays available at the root of a decision. */
+    private final PlayGenerator _rootPlays = new PlayGenerator();
+
+    /** The encoded moves of the chosen play. */
+    private final int[] _plannedMoves = new int[PlayGenerator.MAX_PLAY_LENGTH];
+
+    /** The Zobrist key of the state expected before each move of the chosen play. */
+    private final long[] _expectedKeys = new long[PlayGenerator.MAX_PLAY_LENGTH];
+
+    /** The number of moves of the chosen play. */
+    private int _playLength;
+
+    /** The index of the next move of the chosen play to hand out. */
+    private int _nextMove;
+}
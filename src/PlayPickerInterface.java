@@ -0,0 +1,19 @@
+/**
+ * A MovePickerInterface that can choose a whole play (see PlayGenerator) at once. Instead of one
+ * move at a time, it is handed every play of a turn, together with the positions they reach,
+ * which a PlayGenerator keeps in flat arrays (see PlayGenerator.resultingBoard and resultingKey).
+ * This lets an engine score all candidate positions in one batched call (see
+ * Evaluator.evaluatePlays). Game asks the pickers that support it for whole plays.
+ */
+public interface PlayPickerInterface extends MovePickerInterface {
+
+    /**
+     * Returns the index of the play to make among the plays of PLAYS, which have just been
+     * generated for STATE. STATE must not be modified.
+     *
+     * @param state The state of the game, whose active player is at the start of a turn.
+     * @param plays The plays of STATE, from which the returned play may be chosen.
+     * @return The index of the selected play.
+     */
+    int pickPlay(State state, PlayGenerator plays);
+}
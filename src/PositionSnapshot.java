@@ -0,0 +1,111 @@
+/**
+ * An immutable copy of everything that determines how a game continues from a State: the
+ * position of the pieces, the side to move, the dice and the remaining rolls. The board is held
+ * in the packed form of PackedBoard, so a snapshot is a handful of primitive fields that can be
+ * created in one cheap copy and handed to any number of threads. Each thread then rebuilds its
+ * own private, mutable State with toState.
+ */
+public final class PositionSnapshot {
+
+    /**
+     * Construct a snapshot from the packed fields of a board (see PackedBoard), the SIDE to move,
+     * the dice FIRST and SECOND and the REMAININGROLLS packed by State. KEY is the Zobrist key of
+     * the position, as returned by State.zobristKey().
+     */
+    PositionSnapshot(long lowPoints, long highPoints, int offBoard, Side side, int first,
+                     int second, int remainingRolls, long key) {
+        _lowPoints = lowPoints;
+        _highPoints = highPoints;
+        _offBoard = offBoard;
+        _side = side;
+        _first = first;
+        _second = second;
+        _remainingRolls = remainingRolls;
+        _key = key;
+    }
+
+    /** Returns a snapshot of the current configuration of STATE. */
+    public static PositionSnapshot of(State state) {
+        return state.snapshot();
+    }
+
+    /** Returns a new, independent State holding my configuration, with an empty undo history. */
+    public State toState() {
+        return new State(this);
+    }
+
+    /** Returns a new PackedBoard holding my position. */
+    public PackedBoard board() {
+        return new PackedBoard(_lowPoints, _highPoints, _offBoard);
+    }
+
+    /** Returns the side to move. */
+    public Side side() {
+        return _side;
+    }
+
+    /** Returns the value of the first die. */
+    public int first() {
+        return _first;
+    }
+
+    /** Returns the value of the second die. */
+    public int second() {
+        return _second;
+    }
+
+    /** Returns the Zobrist key of my position, identical to that of the State I was taken from. */
+    public long zobristKey() {
+        return _key;
+    }
+
+    /** Returns the remaining rolls, packed as by State. */
+    int remainingRolls() {
+        return _remainingRolls;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PositionSnapshot snapshot)) {
+            return false;
+        }
+        return _lowPoints == snapshot._lowPoints && _highPoints == snapshot._highPoints
+                && _offBoard == snapshot._offBoard && _side == snapshot._side
+                && _first == snapshot._first && _second == snapshot._second
+                && _remainingRolls == snapshot._remainingRolls;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(_key) * 31 + _remainingRolls;
+    }
+
+    @Override
+    public String toString() {
+        return board().toStringConcise() + " " + _side + " (" + _first + ", " + _second + ")";
+    }
+
+    /** The packed board positions 0-11. See PackedBoard. */
+    private final long _lowPoints;
+
+    /** The packed board positions 12-23. See PackedBoard. */
+    private final long _highPoints;
+
+    /** The packed escaped and captured counters. See PackedBoard. */
+    private final int _offBoard;
+
+    /** The side to move. */
+    private final Side _side;
+
+    /** The value of the first die. */
+    private final int _first;
+
+    /** The value of the second die. */
+    private final int _second;
+
+    /** The remaining rolls, packed as by State. */
+    private final int _remainingRolls;
+
+    /** The Zobrist key of the position. */
+    private final long _key;
+}
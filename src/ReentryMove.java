@@ -11,6 +11,11 @@ public class ReentryMove extends Move {
         }
     }
 
+    @Override
+    int toPacked() {
+        return PackedMove.reentry(getTargetIndex().getIndex(), getRoll(), getSide());
+    }
+
     @Override
     public String toString() {
         return String.format("Reentry Move: CAPTURED -> %d (%s) [%d]", getTargetIndex().getIndex(),
@@ -0,0 +1,158 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.random.RandomGenerator;
+
+/**
+ * Estimates the equity of positions by playing them out to the end many times, with random
+ * dice and a random playout policy (see State.randomLegalMove). Games are numbered, and the dice
+ * and moves of every game are drawn from a SplittableRandom seeded by my seed and the number of
+ * the game alone. Rolling out several positions with the same game numbers therefore uses the
+ * same random numbers for each, which makes their comparison less noisy, and the results do not
+ * depend on how the games are spread over threads.
+ * <p>
+ * Games are played in chunks of CHUNK_SIZE, each chunk a task of a ForkJoinPool, and the
+ * results of the chunks are always combined in the same order.
+ */
+public class Rollout {
+
+    /** Construct a rollout engine using up to PARALLELISM threads, with random SEED. */
+    public Rollout(int parallelism, long seed) {
+        if (parallelism < 1) {
+            throw new BackgammonError("The parallelism of a rollout must be at least one.");
+        }
+        _pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        _seed = seed;
+    }
+
+    /**
+     * Returns the equity of STATE for its active player, estimated from NUMGAMES games. STATE must
+     * be at the start of a turn, before the dice are rolled.
+     */
+    public RolloutResult equity(State state, int numGames) {
+        return rollout(state.snapshot(), state.getCurrentSide(), 0, numGames);
+    }
+
+    /**
+     * Returns the results for SIDE of the games FIRSTGAME to FIRSTGAME + NUMGAMES - 1 played from
+     * START. START is a position at the start of a turn, before the dice are rolled: the side to
+     * move rolls first, and any remaining rolls START holds are ignored.
+     */
+    public RolloutResult rollout(PositionSnapshot start, Side side, long firstGame, int numGames) {
+        return rollout(new PositionSnapshot[] { start }, side, firstGame, numGames)[0];
+    }
+
+    /**
+     * Rolls out each of STARTS as rollout(PositionSnapshot, Side, long, int) does, all at once,
+     * and returns their results in the same order.
+     */
+    public RolloutResult[] rollout(PositionSnapshot[] starts, Side side, long firstGame,
+                                   int numGames) {
+        List<ChunkTask> tasks = new ArrayList<>();
+        for (PositionSnapshot start : starts) {
+            for (int game = 0; game < numGames; game += CHUNK_SIZE) {
+                tasks.add(new ChunkTask(start, side, firstGame + game,
+                                        Math.min(CHUNK_SIZE, numGames - game)));
+            }
+        }
+        if (_pool == null) {
+            tasks.forEach(ForkJoinTask::invoke);
+        } else {
+            _pool.invoke(new RecursiveTask<Void>() {
+                @Override
+                protected Void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                    return null;
+                }
+            });
+        }
+        RolloutResult[] results = new RolloutResult[starts.length];
+        int task = 0;
+        for (int i = 0; i < starts.length; i++) {
+            results[i] = RolloutResult.EMPTY;
+            for (int game = 0; game < numGames; game += CHUNK_SIZE) {
+                results[i] = results[i].plus(tasks.get(task).join());
+                task += 1;
+            }
+        }
+        return results;
+    }
+
+    /** Returns the number of threads I play games with. */
+    public int parallelism() {
+        return _pool == null ? 1 : _pool.getParallelism();
+    }
+
+    /**
+     * Play game number GAME from START to the end with random dice and moves, and return its
+     * result for SIDE.
+     */
+    double playout(PositionSnapshot start, Side side, long game) {
+        SplittableRandom random = new SplittableRandom(_seed ^ (game * GAME_SEED_STEP));
+        return playout(start.toState(), side, random, false);
+    }
+
+    /**
+     * Play STATE to the end with dice and moves drawn from RANDOM, and return its result for
+     * SIDE. If ROLLED, the active player of STATE has rolled its dice already, and continues with
+     * its remaining rolls. Otherwise, STATE is at the start of a turn and the dice are rolled
+     * first. The moves made remain on the undo stack of STATE.
+     */
+    static double playout(State state, Side side, RandomGenerator random, boolean rolled) {
+        boolean turnStart = !rolled;
+        while (!state.gameOver()) {
+            if (turnStart || !state.hasRemainingRolls()) {
+                state.setDice(random.nextInt(1, Dice.NUM_SIDES + 1),
+                              random.nextInt(1, Dice.NUM_SIDES + 1));
+            }
+            int move = state.randomLegalMove(random);
+            state.makeMove(move);
+            /* A pass leaves the unused rolls behind, but ends the turn all the same. */
+            turnStart = PackedMove.kind(move) == PackedMove.PASS_KIND;
+        }
+        return Evaluator.terminalValue(state, side);
+    }
+
+    /** Plays a chunk of consecutive games from one position. */
+    private final class ChunkTask extends RecursiveTask<RolloutResult> {
+
+        ChunkTask(PositionSnapshot start, Side side, long firstGame, int numGames) {
+            _start = start;
+            _side = side;
+            _firstGame = firstGame;
+            _numGames = numGames;
+        }
+
+        @Override
+        protected RolloutResult compute() {
+            double sum = 0;
+            double sumOfSquares = 0;
+            for (long game = _firstGame; game < _firstGame + _numGames; game++) {
+                double result = playout(_start, _side, game);
+                sum += result;
+                sumOfSquares += result * result;
+            }
+            return new RolloutResult(_numGames, sum, sumOfSquares);
+        }
+
+        private final PositionSnapshot _start;
+        private final Side _side;
+        private final long _firstGame;
+        private final int _numGames;
+    }
+
+    /** The number of games played by a single task. */
+    static final int CHUNK_SIZE = 32;
+
+    /** Spreads the seeds of consecutive games over the range of longs. */
+    private static final long GAME_SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    /** The pool playing games in parallel, or null if games are played on the calling thread. */
+    private final ForkJoinPool _pool;
+
+    /** The seed all random numbers are derived from. */
+    private final long _seed;
+}
@@ -0,0 +1,110 @@
+/**
+ * A PlayPicker rolling out the position after every play (see Rollout) and picking the play with
+ * the best mean result. Games are played in rounds, the same games for every play still in the
+ * running. After every round, plays whose confidence interval lies entirely below that of the
+ * best play are dropped, and the search stops as soon as a single play is left or every play has
+ * been rolled out the maximum number of games.
+ */
+public class RolloutPicker extends PlayPicker {
+
+    /**
+     * Construct a picker using ROLLOUT to play up to MAXGAMES games after every play, in rounds
+     * of GAMESPERROUND games. Confidence intervals stretch CONFIDENCE standard errors to either
+     * side of the mean.
+     */
+    public RolloutPicker(Rollout rollout, int maxGames, int gamesPerRound, double confidence) {
+        if (maxGames < 1 || gamesPerRound < 1) {
+            throw new BackgammonError("A rollout needs at least one game per play and round.");
+        }
+        _rollout = rollout;
+        _maxGames = maxGames;
+        _gamesPerRound = gamesPerRound;
+        _confidence = confidence;
+    }
+
+    /** Returns the results of the plays considered in the last decision, by play. */
+    public RolloutResult[] lastResults() {
+        return _lastResults.clone();
+    }
+
+    @Override
+    protected int selectPlay(State state, PlayGenerator plays) {
+        Side side = state.getCurrentSide();
+        int numPlays = plays.numPlays();
+        PositionSnapshot[] starts = new PositionSnapshot[numPlays];
+        RolloutResult[] results = new RolloutResult[numPlays];
+        for (int play = 0; play < numPlays; play++) {
+            plays.makePlay(state, play);
+            boolean won = state.gameOver();
+            starts[play] = state.snapshot();
+            plays.unmakePlay(state, play);
+            if (won) {
+                _lastResults = new RolloutResult[0];
+                return play;
+            }
+            results[play] = RolloutResult.EMPTY;
+        }
+
+        int[] active = new int[numPlays];
+        for (int play = 0; play < numPlays; play++) {
+            active[play] = play;
+        }
+        int numActive = numPlays;
+        long games = 0;
+        while (numActive > 1 && games < _maxGames) {
+            int round = (int) Math.min(_gamesPerRound, _maxGames - games);
+            PositionSnapshot[] roundStarts = new PositionSnapshot[numActive];
+            for (int i = 0; i < numActive; i++) {
+                roundStarts[i] = starts[active[i]];
+            }
+            RolloutResult[] roundResults = _rollout.rollout(roundStarts, side, games, round);
+            for (int i = 0; i < numActive; i++) {
+                results[active[i]] = results[active[i]].plus(roundResults[i]);
+            }
+            games += round;
+
+            RolloutResult best = results[bestOf(active, numActive, results)];
+            double threshold = best.mean() - _confidence * best.standardError();
+            int kept = 0;
+            for (int i = 0; i < numActive; i++) {
+                RolloutResult result = results[active[i]];
+                if (result.mean() + _confidence * result.standardError() >= threshold) {
+                    active[kept] = active[i];
+                    kept += 1;
+                }
+            }
+            numActive = kept;
+        }
+        _lastResults = results;
+        return bestOf(active, numActive, results);
+    }
+
+    /**
+     * Returns the play with the best mean among the first NUMACTIVE plays of ACTIVE, the first
+     * one in case of a tie.
+     */
+    private static int bestOf(int[] active, int numActive, RolloutResult[] results) {
+        int best = active[0];
+        for (int i = 1; i < numActive; i++) {
+            if (results[active[i]].mean() > results[best].mean()) {
+                best = active[i];
+            }
+        }
+        return best;
+    }
+
+    /** Plays the games. */
+    private final Rollout _rollout;
+
+    /** The largest number of games played after a single play. */
+    private final int _maxGames;
+
+    /** The number of games played after every play in the running per round. */
+    private final int _gamesPerRound;
+
+    /** The half-width of confidence intervals, in standard errors. */
+    private final double _confidence;
+
+    /** The results of the plays considered in the last decision. */
+    private RolloutResult[] _lastResults = new RolloutResult[0];
+}
@@ -0,0 +1,62 @@
+/**
+ * The outcome of a number of rollouts of a position: the number of games played and the sum and
+ * sum of squares of their results, from which the mean equity and its standard error follow.
+ * Results of separate batches of games of the same position combine with plus.
+ */
+public final class RolloutResult {
+    /** The result of no games at all. */
+    public static final RolloutResult EMPTY = new RolloutResult(0, 0, 0);
+
+    /**
+     * Construct the result of NUMGAMES games, whose results add up to SUM and whose squared
+     * results add up to SUMOFSQUARES.
+     */
+    RolloutResult(long numGames, double sum, double sumOfSquares) {
+        _numGames = numGames;
+        _sum = sum;
+        _sumOfSquares = sumOfSquares;
+    }
+
+    /** Returns the result of the games of both me and OTHER. */
+    public RolloutResult plus(RolloutResult other) {
+        return new RolloutResult(_numGames + other._numGames, _sum + other._sum,
+                                 _sumOfSquares + other._sumOfSquares);
+    }
+
+    /** Returns the number of games played. */
+    public long numGames() {
+        return _numGames;
+    }
+
+    /** Returns the mean result of my games, or 0 if there are none. */
+    public double mean() {
+        return _numGames == 0 ? 0 : _sum / _numGames;
+    }
+
+    /**
+     * Returns the standard error of my mean, estimated from the sample variance of my games.
+     * Infinite with fewer than two games, as nothing is known about the spread then.
+     */
+    public double standardError() {
+        if (_numGames < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double mean = mean();
+        double variance = Math.max(0, (_sumOfSquares - _numGames * mean * mean) / (_numGames - 1));
+        return Math.sqrt(variance / _numGames);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%.4f +/- %.4f (%d games)", mean(), standardError(), _numGames);
+    }
+
+    /** The number of games played. */
+    private final long _numGames;
+
+    /** The sum of the results of all games. */
+    private final double _sum;
+
+    /** The sum of the squared results of all games. */
+    private final double _sumOfSquares;
+}
@@ -0,0 +1,60 @@
+/**
+ * What a search achieved for its last decision: the depth it completed, the nodes it searched,
+ * the time it took, whether its deadline cut it short and the value of the play it chose. Used
+ * to track the quality of decisions against the time they take.
+ */
+public final class SearchReport {
+
+    /**
+     * Construct a report of a search that completed DEPTH plies, searched NODES nodes in
+     * ELAPSEDNANOS nanoseconds, was cut short by its deadline iff TIMEDOUT, and chose a play of
+     * VALUE.
+     */
+    public SearchReport(int depth, long nodes, long elapsedNanos, boolean timedOut, double value) {
+        _depth = depth;
+        _nodes = nodes;
+        _elapsedNanos = elapsedNanos;
+        _timedOut = timedOut;
+        _value = value;
+    }
+
+    /**
+     * Returns the number of plies searched completely, or 0 if the deadline came before even one
+     * ply was.
+     */
+    public int depth() {
+        return _depth;
+    }
+
+    /** Returns the number of nodes searched, including those of an unfinished ply. */
+    public long nodes() {
+        return _nodes;
+    }
+
+    /** Returns the time the search took, in nanoseconds. */
+    public long elapsedNanos() {
+        return _elapsedNanos;
+    }
+
+    /** Returns true iff the deadline stopped the search before it reached its full depth. */
+    public boolean timedOut() {
+        return _timedOut;
+    }
+
+    /** Returns the value of the chosen play for the side making it, or NaN if unknown. */
+    public double value() {
+        return _value;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SearchReport[depth %d, %d nodes, %.3f ms%s, value %.4f]", _depth,
+                             _nodes, _elapsedNanos / 1e6, _timedOut ? ", timed out" : "", _value);
+    }
+
+    private final int _depth;
+    private final long _nodes;
+    private final long _elapsedNanos;
+    private final boolean _timedOut;
+    private final double _value;
+}
@@ -0,0 +1,158 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A PlayPicker narrowing down the plays of a turn in stages of increasingly expensive scoring.
+ * The first stage scores every play by the evaluation of the position it reaches. Every further
+ * stage keeps only the best candidates of the stage before, by number and by distance in value
+ * from the best of them, and scores the survivors again with its own scorer, typically a deeper
+ * search (see ExpectiminimaxPicker.chanceValue) or a rollout. The play picked is the best of the
+ * last stage.
+ * <p>
+ * A scorer is an Evaluator, applied to the position after a play, at the start of the
+ * opponent's turn, and for the side that made the play. The first stage scores all plays in one
+ * batch (see Evaluator.evaluatePlays). The number of candidates every stage pruned in the last
+ * decision is kept (see lastPruned).
+ */
+public class StagedPicker extends PlayPicker {
+
+    /**
+     * Construct a picker whose first stage scores every play with the default evaluator (see
+     * Evaluator.standard).
+     */
+    public StagedPicker() {
+        this(Evaluator.standard());
+    }
+
+    /** Construct a picker whose first stage scores every play with EVALUATOR. */
+    public StagedPicker(Evaluator evaluator) {
+        _stages.add(new Stage(evaluator, Integer.MAX_VALUE, Double.POSITIVE_INFINITY));
+    }
+
+    /**
+     * Add a last stage, which scores with SCORER the best of the candidates of the stage before:
+     * at most MAXCANDIDATES of them, and only those whose value is within WINDOW of the best.
+     */
+    public void addStage(Evaluator scorer, int maxCandidates, double window) {
+        if (maxCandidates < 1 || !(window >= 0)) {
+            throw new BackgammonError("A stage must keep at least its best candidate.");
+        }
+        _stages.add(new Stage(scorer, maxCandidates, window));
+        _lastCandidates = new int[_stages.size()];
+        _lastPruned = new int[_stages.size()];
+    }
+
+    /** Returns my number of stages. */
+    public int numStages() {
+        return _stages.size();
+    }
+
+    /** Returns the number of candidates scored by every stage in the last decision. */
+    public int[] lastCandidates() {
+        return _lastCandidates.clone();
+    }
+
+    /**
+     * Returns the number of candidates of the stage before that every stage pruned in the last
+     * decision. The first stage prunes none.
+     */
+    public int[] lastPruned() {
+        return _lastPruned.clone();
+    }
+
+    /** Returns the value, for the side that made it, of the play I selected last. */
+    public double lastValue() {
+        return _lastValue;
+    }
+
+    @Override
+    protected int selectPlay(State state, PlayGenerator plays) {
+        Side side = state.getCurrentSide();
+        int numCandidates = plays.numPlays();
+        int[] candidates = new int[numCandidates];
+        double[] values = new double[numCandidates];
+        for (int i = 0; i < numCandidates; i++) {
+            candidates[i] = i;
+        }
+        Arrays.fill(_lastCandidates, 0);
+        Arrays.fill(_lastPruned, 0);
+        for (int s = 0; s < _stages.size(); s++) {
+            Stage stage = _stages.get(s);
+            int kept = stage.keep(values, numCandidates);
+            _lastPruned[s] = numCandidates - kept;
+            numCandidates = kept;
+            _lastCandidates[s] = numCandidates;
+            if (s == 0) {
+                /* Every play is a candidate of the first stage, in order. */
+                stage._scorer.evaluatePlays(state, plays, side, values);
+            } else {
+                for (int i = 0; i < numCandidates; i++) {
+                    plays.makePlay(state, candidates[i]);
+                    values[i] = stage._scorer.evaluate(state, side);
+                    plays.unmakePlay(state, candidates[i]);
+                }
+            }
+            sortByValue(candidates, values, numCandidates);
+        }
+        _lastValue = values[0];
+        return candidates[0];
+    }
+
+    /**
+     * Sort the first NUMCANDIDATES of CANDIDATES and their VALUES by decreasing value, keeping
+     * candidates of equal value in order.
+     */
+    private static void sortByValue(int[] candidates, double[] values, int numCandidates) {
+        for (int i = 1; i < numCandidates; i++) {
+            int candidate = candidates[i];
+            double value = values[i];
+            int j = i;
+            for (; j > 0 && values[j - 1] < value; j--) {
+                candidates[j] = candidates[j - 1];
+                values[j] = values[j - 1];
+            }
+            candidates[j] = candidate;
+            values[j] = value;
+        }
+    }
+
+    /** A scorer, and the candidates of the stage before it keeps. */
+    private static final class Stage {
+
+        Stage(Evaluator scorer, int maxCandidates, double window) {
+            _scorer = scorer;
+            _maxCandidates = maxCandidates;
+            _window = window;
+        }
+
+        /**
+         * Returns the number of the first NUMCANDIDATES candidates of the stage before, with
+         * VALUES in decreasing order, that I keep.
+         */
+        int keep(double[] values, int numCandidates) {
+            int kept = Math.min(1, numCandidates);
+            while (kept < numCandidates && kept < _maxCandidates
+                   && values[kept] >= values[0] - _window) {
+                kept += 1;
+            }
+            return kept;
+        }
+
+        private final Evaluator _scorer;
+        private final int _maxCandidates;
+        private final double _window;
+    }
+
+    /** My stages, in order. */
+    private final List<Stage> _stages = new ArrayList<>();
+
+    /** The number of candidates every stage scored in the last decision. */
+    private int[] _lastCandidates = new int[1];
+
+    /** The number of candidates every stage pruned in the last decision. */
+    private int[] _lastPruned = new int[1];
+
+    /** The value of the play selected last. */
+    private double _lastValue;
+}
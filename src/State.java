@@ -1,4 +1,7 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.random.RandomGenerator;
 
 /**
  * This class handles all things related to the STATE of a game. But also provides methods to
@@ -15,12 +18,11 @@ public class State {
         _board = board;
         _dice = dice;
         _currentSide = currentSide;
-        _remainingRolls = remainingRolls;
+        setRemainingRolls(remainingRolls);
+        _sideToMoveKey = Zobrist.sideToMove(currentSide);
 
         _winner = Side.UNDETERMINED;
         updateGameOver();
-        _legalMoves = new HashSet<>();
-        updateLegalMoves();
     }
 
     /** Create a default state instance. */
@@ -64,6 +66,16 @@ public class State {
         return new State(board, new Dice(first, second), currentSide, new ArrayList<>());
     }
 
+    /**
+     * Create a State instance holding the configuration of SNAPSHOT. The new state shares
+     * nothing with the state the snapshot was taken from.
+     */
+    State(PositionSnapshot snapshot) {
+        this(snapshot.board().toBoard(), new Dice(snapshot.first(), snapshot.second()),
+             snapshot.side(), List.of());
+        _remainingRollCounts = snapshot.remainingRolls();
+    }
+
     /** Create a State instance from a map. */
     static State fromMap(Map<String, Object> stateConfigMap) {
         int[] extendedSetup = (int[]) stateConfigMap.getOrDefault("extendedSetup",
@@ -146,11 +158,13 @@ public class State {
         System.out.println();
     }
 
-    /** Returns true iff the given MOVE represents a capturing move. */
-    private boolean isCapture(Move move) {
-        if (move instanceof ReentryMove || move instanceof BoardMove) {
-            if (_board.occupiedBy(getCurrentSide().opponent(), move.getTargetIndex())) {
-                return _board.single(move.getTargetIndex());
+    /** Returns true iff the encoded MOVE represents a capturing move. */
+    private boolean isCapture(int move) {
+        int kind = PackedMove.kind(move);
+        if (kind == PackedMove.BOARD || kind == PackedMove.REENTRY) {
+            BoardIndex targetIndex = BoardIndex.make(PackedMove.target(move));
+            if (_board.occupiedBy(getCurrentSide().opponent(), targetIndex)) {
+                return _board.single(targetIndex);
             }
         }
         return false;
@@ -161,59 +175,149 @@ public class State {
      * over.
      */
     public void makeMove(Move move) {
-        if (!_legalMoves.contains(move)) {
+        makeMove(move.toPacked());
+    }
+
+    /**
+     * Applies the given encoded MOVE (see PackedMove). Also updates the legal moves accordingly
+     * and checks for game over.
+     */
+    public void makeMove(int move) {
+        if (!isLegalMove(move)) {
             throw new BackgammonError("INVALID MOVE ATTEMPT: Attempting to make a non-legal move.");
         }
         if (gameOver()) {
             throw new BackgammonError("INVALID MOVE ATTEMPT: The game is over.");
         }
-        if (move instanceof PassMove) {
-            _legalMoves.clear(); // TODO: Why am I clearing these?
+        pushUndoRecord(move);
+        int kind = PackedMove.kind(move);
+        if (kind == PackedMove.PASS_KIND) {
+            clearLegalMoves(); // TODO: Why am I clearing these?
             switchTurn();
             return;
         }
         /* If the move is not a pass, it will use one of the remaining rolls. */
-        _remainingRolls.remove((Integer) move.getRoll());
+        _remainingRollCounts -= 1 << rollShift(PackedMove.roll(move));
 
-        if (move instanceof EscapeMove) {
-            _board.setNumEscaped(move.getSide(), _board.numEscaped(move.getSide()) + 1);
-            _board.decrement(move.getStartIndex());
+        if (kind == PackedMove.ESCAPE) {
+            _board.setNumEscaped(getCurrentSide(), _board.numEscaped(getCurrentSide()) + 1);
+            _board.decrement(BoardIndex.make(PackedMove.start(move)));
             update();
             return;
         }
+        BoardIndex targetIndex = BoardIndex.make(PackedMove.target(move));
         if (isCapture(move)) {
             /* Remove the captured piece and increment the captured count for the appropriate
             color. TODO: This only removes the piece at the target and ensured the number of
                     captured pieces for that piece color are incremented. We must still ensure
                     that the capturing piece is moved (i.e decrement inital position and
                     increment target)! */
-            _board.moveToCaptured(move.getTargetIndex());
-            _board.decrement(move.getTargetIndex());
+            _board.moveToCaptured(targetIndex);
+            _board.decrement(targetIndex);
         }
-        if (move instanceof ReentryMove) {
+        if (kind == PackedMove.REENTRY) {
             _board.setNumCaptured(getCurrentSide(), _board.numCaptured(getCurrentSide()) - 1);
+        } else {
+            _board.decrement(BoardIndex.make(PackedMove.start(move)));
         }
-        if (move instanceof BoardMove) {
-            _board.decrement(move.getStartIndex());
-        }
-        _board.increment(move.getTargetIndex(), getCurrentSide());
+        _board.increment(targetIndex, getCurrentSide());
 
         update();
     }
 
+    /**
+     * Undoes the most recent move made by makeMove, restoring the board, the remaining rolls, the
+     * active side and the game over flags to exactly what they were before that move. Moves may
+     * be undone repeatedly, in reverse order, back to the start of the game.
+     */
+    public void unmakeMove() {
+        if (_undoSize == 0) {
+            throw new BackgammonError("INVALID UNDO ATTEMPT: There is no move to undo.");
+        }
+        _undoSize -= 1;
+        int move = _undoMoves[_undoSize];
+        int record = _undoRecords[_undoSize];
+        Side mover = SIDES[(record >>> UNDO_SIDE_SHIFT) & UNDO_SIDE_MASK];
+
+        int kind = PackedMove.kind(move);
+        if (kind == PackedMove.ESCAPE) {
+            _board.setNumEscaped(mover, _board.numEscaped(mover) - 1);
+            _board.increment(BoardIndex.make(PackedMove.start(move)), mover);
+        } else if (kind != PackedMove.PASS_KIND) {
+            BoardIndex targetIndex = BoardIndex.make(PackedMove.target(move));
+            _board.decrement(targetIndex);
+            if ((record & UNDO_CAPTURE_BIT) != 0) {
+                /* Put the captured piece back on the target and off the opponent's bar. */
+                Side opponent = mover.opponent();
+                _board.increment(targetIndex, opponent);
+                _board.setNumCaptured(opponent, _board.numCaptured(opponent) - 1);
+            }
+            if (kind == PackedMove.REENTRY) {
+                _board.setNumCaptured(mover, _board.numCaptured(mover) + 1);
+            } else {
+                _board.increment(BoardIndex.make(PackedMove.start(move)), mover);
+            }
+        }
+
+        setCurrentSide(mover);
+        _winner = SIDES[(record >>> UNDO_WINNER_SHIFT) & UNDO_SIDE_MASK];
+        _gameOver = (record & UNDO_GAME_OVER_BIT) != 0;
+        _remainingRollCounts = record & UNDO_ROLL_COUNTS_MASK;
+        _dice.set((record >>> UNDO_FIRST_SHIFT) & UNDO_DIE_MASK,
+                  (record >>> UNDO_SECOND_SHIFT) & UNDO_DIE_MASK);
+        invalidateLegalMoves();
+    }
+
+    /**
+     * Returns an immutable snapshot of my current configuration, from which independent copies of
+     * me can be created on any thread. See PositionSnapshot.
+     */
+    public PositionSnapshot snapshot() {
+        _snapshotBoard.copyFrom(_board);
+        return new PositionSnapshot(_snapshotBoard.lowPoints(), _snapshotBoard.highPoints(),
+                                    _snapshotBoard.offBoard(), _currentSide, first(), second(),
+                                    _remainingRollCounts, zobristKey());
+    }
+
+    /** Returns the number of moves that can currently be undone by unmakeMove. */
+    public int numUndoableMoves() {
+        return _undoSize;
+    }
+
+    /**
+     * Records everything needed to undo MOVE, which is about to be made, on top of my undo stack.
+     * The stack only grows when it is full, so no allocation takes place for most moves.
+     */
+    private void pushUndoRecord(int move) {
+        if (_undoSize == _undoMoves.length) {
+            _undoMoves = Arrays.copyOf(_undoMoves, 2 * _undoSize);
+            _undoRecords = Arrays.copyOf(_undoRecords, 2 * _undoSize);
+        }
+        int record = _remainingRollCounts;
+        if (isCapture(move)) {
+            record |= UNDO_CAPTURE_BIT;
+        }
+        if (_gameOver) {
+            record |= UNDO_GAME_OVER_BIT;
+        }
+        record |= _currentSide.ordinal() << UNDO_SIDE_SHIFT;
+        record |= _winner.ordinal() << UNDO_WINNER_SHIFT;
+        record |= first() << UNDO_FIRST_SHIFT;
+        record |= second() << UNDO_SECOND_SHIFT;
+        _undoMoves[_undoSize] = move;
+        _undoRecords[_undoSize] = record;
+        _undoSize += 1;
+    }
+
     /** Checks if the game is over. If not, switches the active players turn if there are no more
-     * remaining rolls, and otherwise just updates legal moves. */
+     * remaining rolls. The legal moves are only recomputed once they are needed. */
     private void update() {
         /* Check if the game has ended. */
         updateGameOver();
-        if (!gameOver()) {
-            if (getRemainingRolls().isEmpty()) {
-                /* If after performing the move, no more rolls are available, switch the turn. */
-                switchTurn();
-            } else {
-                /* Otherwise, update legal moves. */
-                updateLegalMoves();
-            }
+        invalidateLegalMoves();
+        if (!gameOver() && _remainingRollCounts == 0) {
+            /* If after performing the move, no more rolls are available, switch the turn. */
+            switchTurn();
         }
     }
 
@@ -243,6 +347,7 @@ public class State {
 
     /** A setter for the currently active side. */
     public void setCurrentSide(Side side) {
+        _sideToMoveKey ^= Zobrist.sideToMove(_currentSide) ^ Zobrist.sideToMove(side);
         _currentSide = side;
     }
 
@@ -250,13 +355,34 @@ public class State {
     public void switchTurn() {
         _currentSide.ensureDetermined();
         _currentSide = _currentSide.opponent();
+        _sideToMoveKey ^= Zobrist.sideToMove(Side.BLACK);
+    }
+
+    /**
+     * Returns the 64-bit Zobrist key of my position: the key of my board combined with the side
+     * to move. The remaining rolls are not part of the key.
+     */
+    public long zobristKey() {
+        return _board.zobristKey() ^ _sideToMoveKey;
     }
 
-    /** Roll my dice, update the available rolls and legal moves. */
+    /** Roll my dice and update the available rolls. Legal moves are generated on demand. */
     public void roll() {
         _dice.roll();
         determineAvailableRolls();
-        updateLegalMoves();
+        invalidateLegalMoves();
+    }
+
+    /**
+     * Set my dice to FIRST and SECOND and update the available rolls, exactly as if they had been
+     * rolled. Used by searches to enumerate the outcomes of a roll.
+     */
+    public void setDice(int first, int second) {
+        Dice.ensureValidDieRoll(first);
+        Dice.ensureValidDieRoll(second);
+        _dice.set(first, second);
+        determineAvailableRolls();
+        invalidateLegalMoves();
     }
 
     /** Check if the score of my dice is a Pasch. That is, equal outcomes on both dice. */
@@ -264,6 +390,50 @@ public class State {
         return _dice.pasch();
     }
 
+    /** Returns true iff neither side can hit the other any more. See Board.noContact(). */
+    public boolean noContact() {
+        return _board.noContact();
+    }
+
+    /**
+     * Returns the exact probability that the active player wins from the start of its turn, if
+     * neither side can hit the other and the standard two-sided database (see
+     * TwoSidedBearoffDatabase.standard) holds my board, or NaN otherwise.
+     */
+    public double exactWinProbability() {
+        if (!noContact()) {
+            return Double.NaN;
+        }
+        TwoSidedBearoffDatabase database;
+        try {
+            database = TwoSidedBearoffDatabase.standard();
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+        if (database == null || !database.covers(_board)) {
+            return Double.NaN;
+        }
+        return database.winProbability(_board, getCurrentSide());
+    }
+
+    /**
+     * Returns the dice outcome (see Dice.outcome) of the active player if all rolls of its dice
+     * are left, as at the start of a turn, or -1 otherwise.
+     */
+    public int turnStartOutcome() {
+        int first = first();
+        int second = second();
+        if (!Dice.validDieRoll(first) || !Dice.validDieRoll(second)) {
+            return -1;
+        }
+        int fullRolls = first == second ? 4 : 2;
+        if (numRemainingRolls() != fullRolls || numRemaining(first) == 0
+                || numRemaining(second) == 0) {
+            return -1;
+        }
+        return Dice.outcome(first, second);
+    }
+
     /** Return the score of my first die. */
     public int first() {
         return _dice.first();
@@ -280,26 +450,87 @@ public class State {
      * should only run once per turn (after the dice are rolled).
      */
     void determineAvailableRolls() {
-        _remainingRolls.clear();
-        _remainingRolls.add(first());
-        _remainingRolls.add(second());
+        _remainingRollCounts = (1 << rollShift(first())) + (1 << rollShift(second()));
         if (pasch()) {
-            _remainingRolls.add(first());
-            _remainingRolls.add(second());
+            _remainingRollCounts *= 2;
         }
     }
 
-    /** Getter for my available rolls. */
+    /**
+     * Returns a new list of my remaining rolls: the first die if it can still be used, then the
+     * second, then any other remaining rolls in ascending order. This is a copy, kept for
+     * compatibility; move generation queries the remaining rolls without allocating.
+     */
     List<Integer> getRemainingRolls() {
-        return _remainingRolls;
+        List<Integer> rolls = new ArrayList<>(MAX_NUM_ROLLS);
+        int counts = _remainingRollCounts;
+        for (int roll : new int[] { first(), second() }) {
+            if (Dice.validDieRoll(roll) && ((counts >>> rollShift(roll)) & ROLL_COUNT_MASK) != 0) {
+                rolls.add(roll);
+                counts -= 1 << rollShift(roll);
+            }
+        }
+        for (int roll = 1; roll <= Dice.NUM_SIDES; roll++) {
+            for (int i = (counts >>> rollShift(roll)) & ROLL_COUNT_MASK; i > 0; i--) {
+                rolls.add(roll);
+            }
+        }
+        return rolls;
+    }
+
+    /** Returns the number of rolls I have left to use this turn. */
+    int numRemainingRolls() {
+        int num = 0;
+        for (int roll = 1; roll <= Dice.NUM_SIDES; roll++) {
+            num += numRemaining(roll);
+        }
+        return num;
+    }
+
+    /** Returns true iff I have rolls left to use this turn. */
+    boolean hasRemainingRolls() {
+        return _remainingRollCounts != 0;
+    }
+
+    /** Returns the number of times ROLL can still be used this turn, from 0 to 4. */
+    int numRemaining(int roll) {
+        return (_remainingRollCounts >>> rollShift(roll)) & ROLL_COUNT_MASK;
+    }
+
+    /** Returns a bitmask of my distinct remaining rolls, where bit R is set iff roll R remains. */
+    int remainingRollMask() {
+        int mask = 0;
+        for (int roll = 1; roll <= Dice.NUM_SIDES; roll++) {
+            if (numRemaining(roll) != 0) {
+                mask |= 1 << roll;
+            }
+        }
+        return mask;
+    }
+
+    /** Replace my remaining rolls with ROLLS. */
+    private void setRemainingRolls(List<Integer> rolls) {
+        if (rolls.size() > MAX_NUM_ROLLS) {
+            throw new BackgammonError("Too many remaining rolls: " + rolls);
+        }
+        _remainingRollCounts = 0;
+        for (int roll : rolls) {
+            Dice.ensureValidDieRoll(roll);
+            _remainingRollCounts += 1 << rollShift(roll);
+        }
+    }
+
+    /** Returns the position of the count of ROLL in _remainingRollCounts. */
+    private static int rollShift(int roll) {
+        return (roll - 1) * ROLL_COUNT_BITS;
     }
 
     /**
-     * Returns an integer array containing the indices of all occupied board positions of the active
-     * player.
+     * Returns a bitmask of all board positions occupied by the active player, where bit i is set
+     * iff board index i is occupied.
      */
-    private List<BoardIndex> activePlayerBoardPositions() {
-        return _board.occupiedBoardIndices(_currentSide);
+    private int activePlayerOccupancyMask() {
+        return _board.occupancyMask(_currentSide);
     }
 
     /** Returns true iff at least one of the active player's pieces has been captured. */
@@ -316,71 +547,213 @@ public class State {
     }
 
     /**
-     * Returns true iff an index constitutes a "perfect escape" for the active player. That is,
-     * it overshoots the edge of the board by EXACTLY one position. This is relevant because when
-     * all pieces of one color are in the end zone, any roll that would take a piece exactly one
-     * position of the board is permitted, even if that piece is not the last piece. For example,
-     * if there are black pieces at positions.
-     * @param targetIndex The target index to be checked.
-     * @return True iff the index constitutes a "perfect escape" for the active player.
+     * Returns the encoded move of a captured piece of the active player reentering with ROLL, or
+     * NO_MOVE if the reentry position is blocked.
      */
-    private boolean perfectEscape(int targetIndex) {
-        return getCurrentSide().isWhite() ? targetIndex == Structure.BOARD_SIZE : targetIndex == -1;
+    private int reentryMoveFromRoll(int roll) {
+        int side = _currentSide.ordinal();
+        if (_board.positionCanBeMovedToBy(MoveTables.reentryTarget(side, roll), _currentSide)) {
+            return MoveTables.reentryMove(side, roll);
+        }
+        return NO_MOVE;
+    }
+
+    /**
+     * Returns the encoded move of the active player's piece at STARTINDEX using ROLL, or NO_MOVE
+     * if that piece cannot be moved by ROLL. Assumes no pieces of the active player are captured.
+     */
+    private int boardMoveFromRoll(int startIndex, int roll) {
+        int side = _currentSide.ordinal();
+        int targetIndex = MoveTables.target(side, startIndex, roll);
+        if (targetIndex >= 0) {
+            /* The roll keeps the piece on the board. */
+            return _board.positionCanBeMovedToBy(targetIndex, _currentSide)
+                    ? MoveTables.move(side, startIndex, roll) : NO_MOVE;
+        }
+        /* The roll would take the piece off the board. Allow if all pieces are in the end zone
+        AND it is a perfect escape, or if it is the last piece on the board. */
+        if (allPiecesInEndZone()
+                && (targetIndex == MoveTables.PERFECT_ESCAPE
+                        || _board.isLastPieceOnBoard(BoardIndex.make(startIndex), _currentSide))) {
+            return MoveTables.move(side, startIndex, roll);
+        }
+        return NO_MOVE;
     }
 
-    /** Takes a single roll (1-6) and determines legal moves based on that roll. */
-    private void updateLegalMovesFromRoll(int roll) {
+    /**
+     * Takes a single roll (1-6) and hands the legal moves based on that roll to VISITOR. Returns
+     * false iff VISITOR stopped the generation.
+     */
+    private boolean generateLegalMovesFromRoll(int roll, MoveVisitor visitor) {
         if (activePlayerHasBeenCaptured()) {
             /* Only permit reentry moves. */
-            BoardIndex targetIndex = ReentryMove.determineTargetIndex(roll, _currentSide);
-            if (positionCanBeMovedToByActivePlayer(targetIndex)) {
-                _legalMoves.add(ReentryMove.move(roll, _currentSide));
+            int move = reentryMoveFromRoll(roll);
+            return move == NO_MOVE || emit(move, visitor);
+        }
+        for (int mask = activePlayerOccupancyMask(); mask != 0; mask &= mask - 1) {
+            int move = boardMoveFromRoll(Integer.numberOfTrailingZeros(mask), roll);
+            if (move != NO_MOVE && !emit(move, visitor)) {
+                return false;
             }
-        } else {
-            for (BoardIndex startIndex : activePlayerBoardPositions()) {
-                int targetIndexPos = getCurrentSide().isWhite() ? startIndex.getIndex() + roll :
-                        startIndex.getIndex() - roll;
-                if (!BoardIndex.validBoardIndices(targetIndexPos)) {
-                    /* The roll would take the piece off the board. */
-                    // Allow if all pieces in end zone AND it is a perfect escape, or allow if last
-                    // piece on the board
-                    if (allPiecesInEndZone()) {
-                        if (perfectEscape(targetIndexPos) || _board.isLastPieceOnBoard(startIndex,
-                                                                                    getCurrentSide())) {
-                            _legalMoves.add(EscapeMove.move(startIndex, roll, getCurrentSide()));
-                        }
-                    }
-                } else {
-                    /* The roll keeps the piece on the board. */
-                    BoardIndex targetIndex = BoardIndex.make(targetIndexPos);
-                    if (positionCanBeMovedToByActivePlayer(targetIndex)) {
-                        _legalMoves.add(BoardMove.move(startIndex, targetIndex, roll));
-                    }
+        }
+        return true;
+    }
+
+    /**
+     * Hands all legal moves, except for a pass, to VISITOR. Returns false iff VISITOR stopped the
+     * generation. Counts the moves handed over in _numMovesGenerated.
+     */
+    private boolean generateLegalMoves(MoveVisitor visitor) {
+        _numMovesGenerated = 0;
+        for (int roll = 1; roll <= Dice.NUM_SIDES; roll++) {
+            if (numRemaining(roll) != 0 && !generateLegalMovesFromRoll(roll, visitor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Hands MOVE to VISITOR, returning whether VISITOR wants more moves. */
+    private boolean emit(int move, MoveVisitor visitor) {
+        _numMovesGenerated += 1;
+        return visitor.visit(move);
+    }
+
+    /**
+     * Hands the encoded legal moves to VISITOR one at a time, stopping as soon as VISITOR returns
+     * false. If no moves have been requested since my last change, the moves are generated on the
+     * fly and not stored, so that a caller which only needs a few moves does not pay for
+     * generating all of them. A pass is handed over iff it is the only legal move.
+     */
+    public void forEachLegalMove(MoveVisitor visitor) {
+        if (_legalMovesValid) {
+            for (int i = 0; i < _legalMoves.size(); i++) {
+                if (!visitor.visit(_legalMoves.get(i))) {
+                    return;
                 }
             }
+            return;
+        }
+        if (gameOver()) {
+            return;
+        }
+        if (generateLegalMoves(visitor) && _numMovesGenerated == 0) {
+            visitor.visit(PackedMove.PASS);
         }
     }
 
-    /** Update all possible legal moves, and their corresponding dice rolls. This should be run
-     *  after every roll and after every move is played, so long as there are still available rolls.
+    /**
+     * Returns one of the encoded legal moves, chosen uniformly at random using RANDOM. Unless
+     * the legal moves have already been requested, they are streamed through a reservoir sample
+     * rather than stored.
      */
-    private void updateLegalMoves() {
-        _legalMoves.clear();
-        Set<Integer> uniqueRemainingRolls = new HashSet<>(_remainingRolls);
-        for (int roll : uniqueRemainingRolls) {
-            updateLegalMovesFromRoll(roll);
+    public int randomLegalMove(RandomGenerator random) {
+        if (_legalMovesValid) {
+            if (_legalMoves.isEmpty()) {
+                throw new BackgammonError("There are no legal moves to choose from.");
+            }
+            return _legalMoves.get(random.nextInt(_legalMoves.size()));
+        }
+        _reservoirRandom = random;
+        _reservoirSize = 0;
+        forEachLegalMove(_reservoirSampler);
+        _reservoirRandom = null;
+        if (_reservoirSize == 0) {
+            throw new BackgammonError("There are no legal moves to choose from.");
+        }
+        return _reservoirMove;
+    }
+
+    /**
+     * Returns true iff the encoded MOVE is legal. Unless the legal moves are already known, this
+     * only checks MOVE itself, rather than generating all legal moves.
+     */
+    private boolean isLegalMove(int move) {
+        if (_legalMovesValid) {
+            return _legalMoves.contains(move);
         }
-        if (_legalMoves.isEmpty()) {
-            _legalMoves.add(PassMove.PASS);
+        if (gameOver()) {
+            return false;
+        }
+        int kind = PackedMove.kind(move);
+        if (kind == PackedMove.PASS_KIND) {
+            /* A pass is only legal if there is nothing else to do. */
+            generateLegalMoves(STOP_AT_FIRST_MOVE);
+            return _numMovesGenerated == 0;
+        }
+        int roll = PackedMove.roll(move);
+        if (numRemaining(roll) == 0) {
+            return false;
+        }
+        if (activePlayerHasBeenCaptured()) {
+            return kind == PackedMove.REENTRY && move == reentryMoveFromRoll(roll);
+        }
+        if (kind == PackedMove.REENTRY) {
+            return false;
+        }
+        BoardIndex startIndex = BoardIndex.make(PackedMove.start(move));
+        return occupiedByActivePlayer(startIndex)
+                && move == boardMoveFromRoll(startIndex.getIndex(), roll);
+    }
+
+    /**
+     * Compute and store all legal moves, unless they are already known. Once the game is over,
+     * there are no legal moves.
+     */
+    private void ensureLegalMoves() {
+        if (_legalMovesValid) {
+            return;
         }
+        _legalMoves.clear();
+        _legalMoveViewValid = false;
+        forEachLegalMove(_legalMoveCollector);
+        _legalMovesValid = true;
+    }
+
+    /** Forget the legal moves, so that they are regenerated the next time they are needed. */
+    private void invalidateLegalMoves() {
+        _legalMovesValid = false;
+        _legalMoveViewValid = false;
+    }
+
+    /** Remove all legal moves, invalidating the Move view of them. */
+    private void clearLegalMoves() {
+        _legalMoves.clear();
+        _legalMovesValid = true;
+        _legalMoveViewValid = false;
     }
 
-    /** Return the set of all legal moves. This list should NOT be modified directly by the
-     * caller! */
+    /** Return the set of all legal moves. This set should NOT be modified directly by the
+     * caller! It is a view of the encoded legal moves, built on first request after they
+     * change. Search code should use legalMoveList() instead. */
     public Set<Move> getLegalMoves() {
+        ensureLegalMoves();
+        if (!_legalMoveViewValid) {
+            _legalMoveView.clear();
+            for (int i = 0; i < _legalMoves.size(); i++) {
+                _legalMoveView.add(PackedMove.toMove(_legalMoves.get(i)));
+            }
+            _legalMoveViewValid = true;
+        }
+        return _legalMoveView;
+    }
+
+    /** Return the list of all encoded legal moves (see PackedMove). This list should NOT be
+     * modified directly by the caller! */
+    public MoveList legalMoveList() {
+        ensureLegalMoves();
         return _legalMoves;
     }
 
+    /**
+     * A visitor receiving encoded legal moves (see PackedMove) one at a time from
+     * forEachLegalMove.
+     */
+    public interface MoveVisitor {
+        /** Receive MOVE. Returns true iff further moves should be handed over. */
+        boolean visit(int move);
+    }
+
     /** Return the Board associated with my state. The Board should NOT be modified directly by
      * the caller. */
     public Board getBoard() {
@@ -412,8 +785,22 @@ public class State {
         printBoard();
         System.out.print("Captured: W: " + _board.numCaptured(Side.WHITE) + ", B: " + _board.numCaptured(Side.BLACK));
         System.out.println(" Escaped: W: " + _board.numEscaped(Side.WHITE) + ", B: " + _board.numEscaped(Side.BLACK));
-        System.out.println("TURN: " + getCurrentSide() + ";  " + _dice + ",  " + _remainingRolls);
-        System.out.println(_legalMoves);
+        System.out.println("TURN: " + getCurrentSide() + ";  " + _dice + ",  " + getRemainingRolls());
+        System.out.println(legalMoveList());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof State otherState)) {
+            return false;
+        }
+        return _currentSide == otherState._currentSide && _board.equals(otherState._board)
+                && _remainingRollCounts == otherState._remainingRollCounts;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(zobristKey());
     }
 
     @Override
@@ -428,12 +815,9 @@ public class State {
         StringBuilder sb = new StringBuilder();
         sb.append(_board.toStringConcise().strip());
         sb.append(" ").append(_currentSide.toString().toLowerCase().charAt(0)).append(" ");
-        for (int i = 0; i < 4; i++) {
-            try {
-                sb.append(getRemainingRolls().get(i));
-            } catch (IndexOutOfBoundsException e) {
-                sb.append(0);
-            }
+        List<Integer> remainingRolls = getRemainingRolls();
+        for (int i = 0; i < MAX_NUM_ROLLS; i++) {
+            sb.append(i < remainingRolls.size() ? remainingRolls.get(i) : 0);
         }
         return sb.toString();
     }
@@ -441,6 +825,9 @@ public class State {
     /** The currently active side. */
     private Side _currentSide;
 
+    /** The part of my Zobrist key contributed by the side to move. */
+    private long _sideToMoveKey;
+
     /** The winner of the game. UNDETERMINED if the game has not ended yet. */
     private Side _winner;
 
@@ -453,13 +840,94 @@ public class State {
     /** The Positions object associated with this board. */
     private final Board _board;
 
-    /** A list of all legal moves that can be made based on the current state. */
-    private final Set<Move> _legalMoves;
+    /** A list of all encoded legal moves that can be made based on the current state. */
+    private final MoveList _legalMoves = new MoveList();
+
+    /** The Move instances corresponding to _legalMoves. Only up to date if _legalMoveViewValid. */
+    private final Set<Move> _legalMoveView = new HashSet<>();
+
+    /** True iff _legalMoveView reflects the current contents of _legalMoves. */
+    private boolean _legalMoveViewValid;
+
+    /** True iff _legalMoves holds the legal moves of my current configuration. */
+    private boolean _legalMovesValid;
+
+    /** The number of moves handed over by the last call to generateLegalMoves. */
+    private int _numMovesGenerated;
+
+    /** Stores every move it visits in _legalMoves. */
+    private final MoveVisitor _legalMoveCollector = move -> {
+        _legalMoves.add(move);
+        return true;
+    };
+
+    /** The random source of the ongoing randomLegalMove call. */
+    private RandomGenerator _reservoirRandom;
+    /** The number of moves visited by _reservoirSampler so far. */
+    private int _reservoirSize;
+    /** The move currently selected by _reservoirSampler. */
+    private int _reservoirMove;
+
+    /** Keeps each visited move with probability 1 / (number of moves visited so far). */
+    private final MoveVisitor _reservoirSampler = move -> {
+        _reservoirSize += 1;
+        if (_reservoirRandom.nextInt(_reservoirSize) == 0) {
+            _reservoirMove = move;
+        }
+        return true;
+    };
+
+    /** Stops the generation at the first move. */
+    private static final MoveVisitor STOP_AT_FIRST_MOVE = move -> false;
+
+    /** Marks the absence of a move. Never a valid encoded move. */
+    private static final int NO_MOVE = -1;
 
     /**
-     * A set of remaining rolls. That is rolls that have not yet been used to make a move in a
-     * given turn. If a Pasch is rolled (say two 3s), then this will store four 3s, as active player
-     * can make up to four moves, using each of the four 3s one time.
+     * The remaining rolls. That is rolls that have not yet been used to make a move in a given
+     * turn. For every roll R, the number of times R can still be used is stored in the
+     * ROLL_COUNT_BITS bits at rollShift(R). If a Pasch is rolled (say two 3s), then the count of
+     * 3s starts at four, as active player can make up to four moves, using each of the four 3s
+     * one time.
      */
-    private final List<Integer> _remainingRolls;
+    private int _remainingRollCounts;
+
+    /** The encoded moves that can be undone by unmakeMove, the most recent one last. */
+    private int[] _undoMoves = new int[INITIAL_UNDO_CAPACITY];
+
+    /**
+     * For every move in _undoMoves, the packed state that move destroyed: the remaining rolls,
+     * whether it captured a piece, the game over flag, the active side, the winner and the dice.
+     */
+    private int[] _undoRecords = new int[INITIAL_UNDO_CAPACITY];
+
+    /** The number of moves on my undo stack. */
+    private int _undoSize;
+
+    /** Side values indexed by ordinal. */
+    private static final Side[] SIDES = Side.values();
+
+    /** The initial number of moves my undo stack can hold before growing. */
+    private static final int INITIAL_UNDO_CAPACITY = 64;
+
+    /** The number of bits holding the count of a single roll in _remainingRollCounts. */
+    private static final int ROLL_COUNT_BITS = 3;
+    private static final int ROLL_COUNT_MASK = (1 << ROLL_COUNT_BITS) - 1;
+
+    /** The largest number of rolls a player may have in one turn, that of a Pasch. */
+    private static final int MAX_NUM_ROLLS = 4;
+
+    /** The remaining roll counts occupy the low bits of an undo record. */
+    private static final int UNDO_ROLL_COUNTS_MASK = (1 << (Dice.NUM_SIDES * ROLL_COUNT_BITS)) - 1;
+    private static final int UNDO_CAPTURE_BIT = 1 << 18;
+    private static final int UNDO_GAME_OVER_BIT = 1 << 19;
+    private static final int UNDO_SIDE_SHIFT = 20;
+    private static final int UNDO_WINNER_SHIFT = 22;
+    private static final int UNDO_SIDE_MASK = 0x3;
+    private static final int UNDO_FIRST_SHIFT = 24;
+    private static final int UNDO_SECOND_SHIFT = 27;
+    private static final int UNDO_DIE_MASK = 0x7;
+
+    /** A board used to pack my position into snapshots. */
+    private final PackedBoard _snapshotBoard = new PackedBoard(0, 0, 0);
 }
@@ -0,0 +1,260 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trains a NeuralNetEvaluator by TD(λ) on games it plays against itself. In every game, both
+ * sides make the play the network values highest (see NeuralNetEvaluator.evaluatePlays), and
+ * after every play the network's estimate of the outcome for white is moved towards its estimate
+ * after the next play, or towards the actual outcome after the last. Eligibility traces spread
+ * every correction over the earlier positions of the game, decaying by λ per play.
+ * <p>
+ * Games are played by several workers at once, each on its own thread with its own state,
+ * traces and buffers, so a move allocates nothing. The workers update the shared weights without
+ * any locking: an update may occasionally be lost to a concurrent one, which costs far less
+ * than synchronizing every update would. Games are numbered, and the dice of every game are
+ * drawn from a SplittableRandom seeded by my seed and the number of the game.
+ * <p>
+ * Every so many games, the network and the number of games played are saved to a checkpoint
+ * file, from which training can be resumed (see resume).
+ */
+public class TdTrainer {
+
+    /**
+     * Construct a trainer of NETWORK with the step size LEARNINGRATE and trace decay LAMBDA,
+     * playing games on PARALLELISM threads with random SEED.
+     */
+    public TdTrainer(NeuralNetEvaluator network, double learningRate, double lambda,
+                     int parallelism, long seed) {
+        this(network, learningRate, lambda, parallelism, seed, 0);
+    }
+
+    /** As above, but as if GAMESPLAYED games had been played already. */
+    private TdTrainer(NeuralNetEvaluator network, double learningRate, double lambda,
+                      int parallelism, long seed, long gamesPlayed) {
+        if (parallelism < 1) {
+            throw new BackgammonError("Training needs at least one thread.");
+        }
+        if (!(learningRate > 0) || !(lambda >= 0 && lambda <= 1)) {
+            throw new BackgammonError("Invalid learning rate %f or lambda %f.", learningRate, lambda);
+        }
+        _network = network;
+        _learningRate = (float) learningRate;
+        _lambda = (float) lambda;
+        _parallelism = parallelism;
+        _seed = seed;
+        _gamesPlayed = new AtomicLong(gamesPlayed);
+    }
+
+    /**
+     * Returns a trainer continuing the training saved in CHECKPOINT (see train), with the same
+     * parameters as the constructor.
+     */
+    public static TdTrainer resume(Path checkpoint, double learningRate, double lambda,
+                                   int parallelism, long seed) throws IOException {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(checkpoint))) {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != CHECKPOINT_MAGIC) {
+                throw new BackgammonError("%s is not a training checkpoint.", checkpoint);
+            }
+            long gamesPlayed = data.readLong();
+            NeuralNetEvaluator network = NeuralNetEvaluator.read(data);
+            return new TdTrainer(network, learningRate, lambda, parallelism, seed, gamesPlayed);
+        }
+    }
+
+    /** Returns the network I train. */
+    public NeuralNetEvaluator network() {
+        return _network;
+    }
+
+    /** Returns the number of games played, including those before a resume. */
+    public long gamesPlayed() {
+        return _gamesPlayed.get();
+    }
+
+    /**
+     * Play NUMGAMES more games, learning from each. If CHECKPOINT is not null, save the training
+     * there whenever the number of games played reaches a multiple of CHECKPOINTINTERVAL, and
+     * once more at the end. CHECKPOINTINTERVAL must be positive.
+     */
+    public void train(long numGames, long checkpointInterval, Path checkpoint) throws IOException {
+        if (numGames < 0 || checkpointInterval <= 0) {
+            throw new BackgammonError("Invalid number of games %d or checkpoint interval %d.",
+                                      numGames, checkpointInterval);
+        }
+        long first = _gamesPlayed.get();
+        AtomicLong nextGame = new AtomicLong(first);
+        long end = first + numGames;
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (int i = 0; i < _parallelism; i++) {
+            Worker worker = new Worker();
+            tasks.add(ForkJoinTask.adapt(() -> {
+                for (long game = nextGame.getAndIncrement(); game < end;
+                     game = nextGame.getAndIncrement()) {
+                    worker.playGame(game);
+                    long played = _gamesPlayed.incrementAndGet();
+                    if (checkpoint != null && played % checkpointInterval == 0) {
+                        saveUnchecked(checkpoint);
+                    }
+                }
+            }));
+        }
+        try {
+            if (_parallelism == 1) {
+                tasks.get(0).invoke();
+            } else {
+                ForkJoinPool pool = new ForkJoinPool(_parallelism);
+                try {
+                    pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } catch (UncheckedIOException excp) {
+            throw excp.getCause();
+        }
+        if (checkpoint != null) {
+            save(checkpoint);
+        }
+    }
+
+    /**
+     * Save the number of games played and the network to CHECKPOINT, replacing it atomically so
+     * that an interrupted save leaves the previous checkpoint intact.
+     */
+    public synchronized void save(Path checkpoint) throws IOException {
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(CHECKPOINT_MAGIC);
+            data.writeLong(_gamesPlayed.get());
+            _network.write(data);
+        }
+        Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Save to CHECKPOINT from a worker, which cannot throw checked exceptions. */
+    private void saveUnchecked(Path checkpoint) {
+        try {
+            save(checkpoint);
+        } catch (IOException excp) {
+            throw new UncheckedIOException(excp);
+        }
+    }
+
+    /** Plays and learns from games on one thread, reusing its buffers for every game. */
+    private final class Worker {
+
+        /** Play game number GAME against itself and learn from it. */
+        void playGame(long game) {
+            SplittableRandom random = new SplittableRandom(_seed ^ (game * GAME_SEED_STEP));
+            int first = random.nextInt(1, Dice.NUM_SIDES + 1);
+            int second = random.nextInt(1, Dice.NUM_SIDES + 1);
+            State state = new State(random.nextBoolean() ? Side.WHITE : Side.BLACK, first, second);
+            state.setDice(first, second);
+            Arrays.fill(_traces, 0);
+            predict(state.getBoard(), state.getCurrentSide());
+            _network.accumulateTraces(_inputs, _hidden, _outputs, _lambda, _traces);
+            while (true) {
+                makeBestPlay(state);
+                if (state.gameOver()) {
+                    NeuralNetEvaluator.outcome(state.getBoard(), state.winner(), Side.WHITE,
+                                               _targets, 0);
+                    learn(_targets, _outputs);
+                    return;
+                }
+                System.arraycopy(_outputs, 0, _previous, 0, NeuralNetEvaluator.NUM_OUTPUTS);
+                predict(state.getBoard(), state.getCurrentSide());
+                learn(_outputs, _previous);
+                _network.accumulateTraces(_inputs, _hidden, _outputs, _lambda, _traces);
+                state.setDice(random.nextInt(1, Dice.NUM_SIDES + 1),
+                              random.nextInt(1, Dice.NUM_SIDES + 1));
+            }
+        }
+
+        /** Make the play of the active side of STATE its network values highest. */
+        private void makeBestPlay(State state) {
+            int numPlays = _plays.generate(state);
+            if (_values.length < numPlays) {
+                _values = new double[2 * numPlays];
+            }
+            _network.evaluatePlays(state, _plays, _values);
+            int best = 0;
+            for (int play = 1; play < numPlays; play++) {
+                if (_values[play] > _values[best]) {
+                    best = play;
+                }
+            }
+            _plays.makePlay(state, best);
+        }
+
+        /** Compute the network's estimate for white of BOARD with SIDETOMOVE to move. */
+        private void predict(Board board, Side sideToMove) {
+            NeuralNetEvaluator.encode(board, Side.WHITE, sideToMove == Side.WHITE, _inputs, 0);
+            _network.forward(_inputs, 1, _hidden, _outputs);
+        }
+
+        /**
+         * Move the weights along the traces, by the errors of the ESTIMATES of the last position
+         * against the TARGETS.
+         */
+        private void learn(float[] targets, float[] estimates) {
+            float[] weights = _network.weights();
+            int numWeights = weights.length;
+            for (int o = 0; o < NeuralNetEvaluator.NUM_OUTPUTS; o++) {
+                float step = _learningRate * (targets[o] - estimates[o]);
+                if (step == 0) {
+                    continue;
+                }
+                int base = o * numWeights;
+                for (int k = 0; k < numWeights; k++) {
+                    weights[k] += step * _traces[base + k];
+                }
+            }
+        }
+
+        private final PlayGenerator _plays = new PlayGenerator();
+        private final float[] _inputs = new float[NeuralNetEvaluator.NUM_INPUTS];
+        private final float[] _hidden = new float[_network.numHidden()];
+        /** The network's estimate of the current position, and of the one before it. */
+        private final float[] _outputs = new float[NeuralNetEvaluator.NUM_OUTPUTS];
+        private final float[] _previous = new float[NeuralNetEvaluator.NUM_OUTPUTS];
+        /** The outcome of a finished game. */
+        private final float[] _targets = new float[NeuralNetEvaluator.NUM_OUTPUTS];
+        /** The eligibility traces of every weight, a row of weights per output. */
+        private final float[] _traces =
+                new float[NeuralNetEvaluator.NUM_OUTPUTS * _network.weights().length];
+        private double[] _values = new double[64];
+    }
+
+    /** Identifies a checkpoint file. */
+    private static final int CHECKPOINT_MAGIC = 0x54444350;
+
+    /** Spreads the seeds of consecutive games over the range of longs. */
+    private static final long GAME_SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    private final NeuralNetEvaluator _network;
+    private final float _learningRate;
+    private final float _lambda;
+    private final int _parallelism;
+    private final long _seed;
+    /** The number of games played, including those before a resume. */
+    private final AtomicLong _gamesPlayed;
+}
@@ -0,0 +1,50 @@
+/**
+ * The thinking time of one player over a match: at most a fixed time per move, and at most a
+ * total time over all moves. Every move is given the smaller of its own limit and an even share
+ * of the match time left, spread over MOVES_TO_PLAN more moves, so that the match time is never
+ * used up all at once.
+ */
+public class TimeBudget {
+
+    /**
+     * Construct a budget of MOVEMILLIS milliseconds per move and MATCHMILLIS milliseconds in
+     * total.
+     */
+    public TimeBudget(long moveMillis, long matchMillis) {
+        if (moveMillis <= 0 || matchMillis <= 0) {
+            throw new BackgammonError("Thinking times must be positive.");
+        }
+        _moveNanos = moveMillis * NANOS_PER_MILLI;
+        _remainingNanos = matchMillis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Returns the deadline, as a value of System.nanoTime(), of a move started at the time
+     * START.
+     */
+    public synchronized long deadline(long start) {
+        long share = Math.max(_remainingNanos, 0) / MOVES_TO_PLAN;
+        return start + Math.min(_moveNanos, share);
+    }
+
+    /** Charge the ELAPSED nanoseconds of a move against the match time. */
+    public synchronized void charge(long elapsed) {
+        _remainingNanos -= elapsed;
+    }
+
+    /** Returns the match time left, in nanoseconds. */
+    public synchronized long remainingNanos() {
+        return _remainingNanos;
+    }
+
+    /** The number of moves the match time left is shared out over. */
+    static final int MOVES_TO_PLAN = 20;
+
+    private static final long NANOS_PER_MILLI = 1_000_000;
+
+    /** The longest time of a single move. */
+    private final long _moveNanos;
+
+    /** The match time left. */
+    private long _remainingNanos;
+}
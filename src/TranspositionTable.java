@@ -0,0 +1,189 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size cache of search results, keyed by 64-bit position keys (see Zobrist), which can be
+ * shared by any number of search threads without locking.
+ * <p>
+ * The table is an array of buckets of BUCKET_SIZE entries, and a key can only live in the bucket
+ * selected by its low bits. Every entry is two longs: the value as the bits of a double, and the
+ * high bits of the key, the search depth and the age of the entry packed into a long, which is
+ * stored XORed with the value. A reader recovers the packed long by XORing both halves again and
+ * only accepts the entry if the key matches, so an entry torn by a concurrent write is rejected
+ * like any other miss rather than returning a wrong value.
+ * <p>
+ * When a bucket is full, a store replaces the entry left by the oldest search, and among those
+ * the one with the shallowest depth, so that expensive results of the current search survive.
+ */
+public class TranspositionTable {
+
+    /** Construct a table using at most MEGABYTES MB of memory for its entries. */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new BackgammonError("A transposition table needs at least 1 MB.");
+        }
+        long maxBuckets = ((long) megabytes << 20) / (BUCKET_SIZE * BYTES_PER_ENTRY);
+        int numBuckets = Integer.highestOneBit((int) Math.min(maxBuckets, MAX_BUCKETS));
+        _bucketMask = numBuckets - 1;
+        _checks = new long[numBuckets * BUCKET_SIZE];
+        _values = new long[numBuckets * BUCKET_SIZE];
+    }
+
+    /**
+     * Returns the value stored for KEY by a search at least DEPTH plies deep, or NaN if there is
+     * none.
+     */
+    public double probe(long key, int depth) {
+        int first = bucket(key);
+        for (int i = first; i < first + BUCKET_SIZE; i++) {
+            long value = _values[i];
+            long meta = _checks[i] ^ value;
+            if ((meta & KEY_MASK) == (key & KEY_MASK) && meta != 0) {
+                if (depth(meta) >= depth) {
+                    _hits.increment();
+                    return Double.longBitsToDouble(value);
+                }
+                break;
+            }
+        }
+        _misses.increment();
+        return Double.NaN;
+    }
+
+    /** Store VALUE as the result of a search DEPTH plies deep from the position with KEY. */
+    public void store(long key, int depth, double value) {
+        if (depth < 0 || depth > MAX_DEPTH) {
+            throw new BackgammonError("Cannot store a depth of " + depth + ".");
+        }
+        int age = _age;
+        int first = bucket(key);
+        int victim = first;
+        int victimPriority = Integer.MAX_VALUE;
+        for (int i = first; i < first + BUCKET_SIZE; i++) {
+            long meta = _checks[i] ^ _values[i];
+            if (meta == 0) {
+                victim = i;
+                break;
+            }
+            if ((meta & KEY_MASK) == (key & KEY_MASK)) {
+                if (depth(meta) > depth && age(meta) == age) {
+                    /* Keep the deeper result of the current search. */
+                    return;
+                }
+                victim = i;
+                victimPriority = Integer.MIN_VALUE;
+                break;
+            }
+            int priority = depth(meta) - AGE_WEIGHT * ((age - age(meta)) & AGE_MASK);
+            if (priority < victimPriority) {
+                victim = i;
+                victimPriority = priority;
+            }
+        }
+        long oldMeta = _checks[victim] ^ _values[victim];
+        if (oldMeta != 0 && (oldMeta & KEY_MASK) != (key & KEY_MASK) && age(oldMeta) == age) {
+            _collisions.increment();
+        }
+        long bits = Double.doubleToRawLongBits(value);
+        long meta = (key & KEY_MASK) | ((long) age << AGE_SHIFT) | depth | OCCUPIED_BIT;
+        _values[victim] = bits;
+        _checks[victim] = meta ^ bits;
+        _stores.increment();
+    }
+
+    /**
+     * Mark the start of a new search. Entries of earlier searches remain usable, but are the
+     * first to be replaced.
+     */
+    public void newSearch() {
+        _age = (_age + 1) & AGE_MASK;
+    }
+
+    /** Remove all entries and reset all counters. Must not run concurrently with a search. */
+    public void clear() {
+        Arrays.fill(_checks, 0);
+        Arrays.fill(_values, 0);
+        _hits.reset();
+        _misses.reset();
+        _collisions.reset();
+        _stores.reset();
+    }
+
+    /** Returns the number of entries I can hold. */
+    public int capacity() {
+        return _checks.length;
+    }
+
+    /** Returns the number of probes that found a usable value. */
+    public long hits() {
+        return _hits.sum();
+    }
+
+    /** Returns the number of probes that found no usable value. */
+    public long misses() {
+        return _misses.sum();
+    }
+
+    /** Returns the number of stores evicting an entry of another position of the same search. */
+    public long collisions() {
+        return _collisions.sum();
+    }
+
+    /** Returns the number of values stored. */
+    public long stores() {
+        return _stores.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TranspositionTable[%d entries, %d hits, %d misses, %d collisions]",
+                             capacity(), hits(), misses(), collisions());
+    }
+
+    /** Returns the index of the first entry of the bucket of KEY. */
+    private int bucket(long key) {
+        return ((int) key & _bucketMask) * BUCKET_SIZE;
+    }
+
+    /** Returns the depth packed into META. */
+    private static int depth(long meta) {
+        return (int) meta & DEPTH_MASK;
+    }
+
+    /** Returns the age packed into META. */
+    private static int age(long meta) {
+        return (int) (meta >>> AGE_SHIFT) & AGE_MASK;
+    }
+
+    /** The number of entries sharing a bucket. */
+    static final int BUCKET_SIZE = 4;
+    /** The memory used by an entry. */
+    private static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+    /** The largest number of buckets, keeping the number of entries within an int. */
+    private static final long MAX_BUCKETS = 1L << 28;
+    /** The largest depth that can be stored. */
+    static final int MAX_DEPTH = 0x7F;
+
+    /** The packed long of an entry: depth, occupied bit, age, then the high bits of the key. */
+    private static final int DEPTH_MASK = 0x7F;
+    private static final long OCCUPIED_BIT = 0x80;
+    private static final int AGE_SHIFT = 8;
+    private static final int AGE_MASK = 0xFF;
+    private static final long KEY_MASK = -1L << 16;
+    /** The depth an entry is worth, when replacing entries, per search it is older. */
+    private static final int AGE_WEIGHT = 4;
+
+    /** Selects the bucket of a key from its low bits. */
+    private final int _bucketMask;
+    /** The packed key, depth and age of every entry, XORed with its value. */
+    private final long[] _checks;
+    /** The value of every entry, as the bits of a double. */
+    private final long[] _values;
+    /** The age of the current search. */
+    private volatile int _age;
+
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _collisions = new LongAdder();
+    private final LongAdder _stores = new LongAdder();
+}
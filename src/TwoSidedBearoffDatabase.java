@@ -0,0 +1,380 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Exact probabilities of winning races in which both sides have at most maxPieces() pieces left,
+ * all in their end zones: for every pair of one-sided positions (see BearoffDatabase.index), the
+ * probability that the side to move wins, at the start of its turn, when both sides play to win.
+ * Unlike a BearoffDatabase, which minimizes the expected number of turns, this accounts for
+ * plays that gamble or play safe depending on the opponent's position.
+ * <p>
+ * The probabilities are computed backwards from the end of the race. A play never increases the
+ * pip count of the side making it, so the value of a pair depends on pairs of a lower total pip
+ * count only, apart from rolls without a legal move, which leave the position to the opponent
+ * unchanged. The pairs are therefore computed layer by layer in the order of their total pip
+ * count, in parallel within every layer. A pair and its mirror image, which depend on each other
+ * through those rolls, are solved together.
+ * <p>
+ * The file stores every probability as an unsigned 16-bit fraction, in a square table indexed by
+ * the ranks of the positions of both sides among all positions of up to maxPieces() pieces. It
+ * is mapped into memory by open.
+ */
+public class TwoSidedBearoffDatabase {
+
+    /** Construct a database reading the mapped file contents BUFFER. */
+    private TwoSidedBearoffDatabase(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != FILE_MAGIC) {
+            throw new BackgammonError("Not a two-sided bearoff database of this version.");
+        }
+        _maxPieces = buffer.getInt(4);
+        if (_maxPieces < 0 || _maxPieces > Structure.NUM_PIECES_PER_SIDE) {
+            throw new BackgammonError("The two-sided bearoff database is damaged.");
+        }
+        _ranks = ranks(_maxPieces);
+        _numRanks = buffer.getInt(8);
+        if (_numRanks != numRanks(_ranks)
+                || buffer.capacity() != HEADER_SIZE + (long) _numRanks * _numRanks * Character.BYTES) {
+            throw new BackgammonError("The two-sided bearoff database is damaged.");
+        }
+        _buffer = buffer;
+    }
+
+    /** Returns the database stored in FILE by generate, mapped into memory. */
+    public static TwoSidedBearoffDatabase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new TwoSidedBearoffDatabase(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                                           channel.size()));
+        }
+    }
+
+    /**
+     * Returns the database in the standard file (see standardFile), or null if it has not been
+     * generated (see generateStandard). The file is looked for only once per JVM, so that later
+     * calls take no lock and touch no file, whether or not it was there.
+     */
+    public static TwoSidedBearoffDatabase standard() throws IOException {
+        if (!_standardLoaded) {
+            loadStandard();
+        }
+        return _standard;
+    }
+
+    /** Make standard() look for the standard file again. */
+    static synchronized void resetStandard() {
+        _standardLoaded = false;
+        _standard = null;
+    }
+
+    /** Open the standard file, if there is one, unless it has been looked for already. */
+    private static synchronized void loadStandard() throws IOException {
+        if (!_standardLoaded) {
+            Path file = standardFile();
+            _standard = Files.exists(file) ? open(file) : null;
+            _standardLoaded = true;
+        }
+    }
+
+    /**
+     * Generate the standard file, for up to STANDARD_MAX_PIECES pieces per side, on PARALLELISM
+     * threads. This is the build step behind standard(): it takes a few seconds and writes
+     * about 2 MB.
+     */
+    public static void generateStandard(int parallelism) throws IOException {
+        generate(standardFile(), STANDARD_MAX_PIECES, parallelism);
+        resetStandard();
+    }
+
+    /**
+     * Returns the standard file, named by the system property backgammon.bearoff2, by default
+     * bearoff2.db in the working directory.
+     */
+    public static Path standardFile() {
+        return Path.of(System.getProperty(STANDARD_FILE_PROPERTY, STANDARD_FILE_NAME));
+    }
+
+    /** Returns the largest number of pieces per side of a position I hold. */
+    public int maxPieces() {
+        return _maxPieces;
+    }
+
+    /**
+     * Returns true iff I hold BOARD: both sides have all their pieces left on points of their end
+     * zones, at most maxPieces() each. There is no contact in such a position.
+     */
+    public boolean covers(Board board) {
+        return covers(board, Side.WHITE) && covers(board, Side.BLACK);
+    }
+
+    /** Returns true iff the pieces of SIDE on BOARD are within my positions. */
+    private boolean covers(Board board, Side side) {
+        return board.allPiecesInEndZone(side) && !board.hasCapturedPiece(side)
+                && Structure.NUM_PIECES_PER_SIDE - board.numEscaped(side) <= _maxPieces;
+    }
+
+    /**
+     * Returns the probability that SIDETOMOVE wins the race on BOARD, which I must cover, if it is
+     * at the start of its turn.
+     */
+    public double winProbability(Board board, Side sideToMove) {
+        int own = _ranks[BearoffDatabase.index(board, sideToMove)];
+        int opponent = _ranks[BearoffDatabase.index(board, sideToMove.opponent())];
+        return _buffer.getChar(HEADER_SIZE + (own * _numRanks + opponent) * Character.BYTES)
+                / PROBABILITY_SCALE;
+    }
+
+    /**
+     * Compute the probabilities of all pairs of positions of up to MAXPIECES pieces on
+     * PARALLELISM threads, and store them in FILE, replacing it atomically.
+     */
+    public static void generate(Path file, int maxPieces, int parallelism) throws IOException {
+        if (maxPieces < 0 || maxPieces > MAX_GENERATED_PIECES) {
+            throw new BackgammonError("Cannot generate two-sided bearoffs of %d pieces.",
+                                      maxPieces);
+        }
+        if (parallelism < 1) {
+            throw new BackgammonError("Generating needs at least one thread.");
+        }
+        Generator generator = new Generator(maxPieces);
+        if (parallelism == 1) {
+            for (int layer = 0; layer < generator._layers.length; layer++) {
+                generator.solve(layer, 0, generator._layers[layer].length);
+            }
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                for (int layer = 0; layer < generator._layers.length; layer++) {
+                    pool.invoke(generator.layerTask(layer));
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        write(file, maxPieces, generator);
+    }
+
+    /** Store the probabilities computed by GENERATOR for up to MAXPIECES pieces in FILE. */
+    private static void write(Path file, int maxPieces, Generator generator) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temporary))) {
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(FILE_MAGIC);
+            data.writeInt(maxPieces);
+            data.writeInt(generator._numRanks);
+            data.writeInt(0);
+            for (double probability : generator._wins) {
+                data.writeChar((int) Math.round(probability * PROBABILITY_SCALE));
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+                   StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the rank of every one-sided position index among those of up to MAXPIECES pieces,
+     * in the order of their indices, or -1 for positions with more pieces.
+     */
+    private static int[] ranks(int maxPieces) {
+        int[] ranks = new int[BearoffDatabase.NUM_INDICES];
+        int rank = 0;
+        for (int index = 0; index < ranks.length; index++) {
+            ranks[index] = BearoffDatabase.numPieces(index) <= maxPieces ? rank++ : -1;
+        }
+        return ranks;
+    }
+
+    /** Returns the number of positions ranked by RANKS. */
+    private static int numRanks(int[] ranks) {
+        int numRanks = 0;
+        for (int rank : ranks) {
+            numRanks = Math.max(numRanks, rank + 1);
+        }
+        return numRanks;
+    }
+
+    /** The tables of a generation in progress. */
+    private static final class Generator {
+
+        /** Prepare the generation of all pairs of positions of up to MAXPIECES pieces. */
+        Generator(int maxPieces) {
+            int[] ranks = ranks(maxPieces);
+            _numRanks = numRanks(ranks);
+            _indices = new int[_numRanks];
+            for (int index = 0; index < ranks.length; index++) {
+                if (ranks[index] >= 0) {
+                    _indices[ranks[index]] = index;
+                }
+            }
+            _successors = new int[_numRanks][Dice.NUM_OUTCOMES][];
+            _passProbabilities = new double[_numRanks];
+            PlayGenerator plays = new PlayGenerator();
+            for (int rank = 1; rank < _numRanks; rank++) {
+                State state = State.fromExtendedSetup(BearoffDatabase.setup(_indices[rank]), 1, 2,
+                                                      Side.WHITE);
+                for (int outcome = 0; outcome < Dice.NUM_OUTCOMES; outcome++) {
+                    state.setDice(Dice.outcomeFirst(outcome), Dice.outcomeSecond(outcome));
+                    int numPlays = plays.generate(state);
+                    int[] successors = new int[numPlays];
+                    for (int play = 0; play < numPlays; play++) {
+                        plays.makePlay(state, play);
+                        successors[play] = ranks[BearoffDatabase.index(state.getBoard(), Side.WHITE)];
+                        plays.unmakePlay(state, play);
+                    }
+                    if (numPlays == 1 && successors[0] == rank) {
+                        _passProbabilities[rank] += Dice.outcomeProbability(outcome);
+                        successors = new int[0];
+                    }
+                    _successors[rank][outcome] = successors;
+                }
+            }
+            _layers = layers();
+            _wins = new double[_numRanks * _numRanks];
+        }
+
+        /**
+         * Returns the pairs of ranks to solve, as rank * numRanks + rank with the first rank not
+         * above the second, by their total pip count.
+         */
+        private long[][] layers() {
+            int[] pips = new int[_numRanks];
+            int maxPips = 0;
+            for (int rank = 0; rank < _numRanks; rank++) {
+                pips[rank] = BearoffDatabase.pipCount(_indices[rank]);
+                maxPips = Math.max(maxPips, pips[rank]);
+            }
+            int[] sizes = new int[2 * maxPips + 1];
+            for (int first = 0; first < _numRanks; first++) {
+                for (int second = first; second < _numRanks; second++) {
+                    sizes[pips[first] + pips[second]] += 1;
+                }
+            }
+            long[][] layers = new long[sizes.length][];
+            for (int layer = 0; layer < sizes.length; layer++) {
+                layers[layer] = new long[sizes[layer]];
+            }
+            Arrays.fill(sizes, 0);
+            for (int first = 0; first < _numRanks; first++) {
+                for (int second = first; second < _numRanks; second++) {
+                    int layer = pips[first] + pips[second];
+                    layers[layer][sizes[layer]++] = (long) first * _numRanks + second;
+                }
+            }
+            return layers;
+        }
+
+        /** Returns a task solving all pairs of LAYER, split into chunks. */
+        ForkJoinTask<?> layerTask(int layer) {
+            int size = _layers[layer].length;
+            List<ForkJoinTask<?>> chunks = new ArrayList<>();
+            for (int start = 0; start < size; start += CHUNK_SIZE) {
+                int from = start;
+                int to = Math.min(size, start + CHUNK_SIZE);
+                chunks.add(ForkJoinTask.adapt(() -> solve(layer, from, to)));
+            }
+            return ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(chunks));
+        }
+
+        /** Solve the pairs FROM to TO - 1 of LAYER. */
+        void solve(int layer, int from, int to) {
+            for (int i = from; i < to; i++) {
+                long pair = _layers[layer][i];
+                solve((int) (pair / _numRanks), (int) (pair % _numRanks));
+            }
+        }
+
+        /** Compute the probabilities of the pair of ranks A and B, with either side to move. */
+        private void solve(int a, int b) {
+            if (a == 0 || b == 0) {
+                /* The side without pieces has won already. */
+                _wins[a * _numRanks + b] = a == 0 ? 1 : 0;
+                _wins[b * _numRanks + a] = b == 0 ? 1 : 0;
+                return;
+            }
+            double passA = _passProbabilities[a];
+            double passB = _passProbabilities[b];
+            double movedA = movedWins(a, b);
+            double movedB = movedWins(b, a);
+            /* With W(a, b) = movedA + passA * (1 - W(b, a)) and W(b, a) likewise. */
+            double winA = (movedA + passA - passA * movedB - passA * passB) / (1 - passA * passB);
+            double winB = movedB + passB * (1 - winA);
+            _wins[a * _numRanks + b] = winA;
+            _wins[b * _numRanks + a] = winB;
+        }
+
+        /**
+         * Returns the probability that MOVER, to move against OPPONENT, rolls dice it can move
+         * with and wins.
+         */
+        private double movedWins(int mover, int opponent) {
+            double wins = 0;
+            for (int outcome = 0; outcome < Dice.NUM_OUTCOMES; outcome++) {
+                int[] successors = _successors[mover][outcome];
+                double best = 0;
+                for (int successor : successors) {
+                    best = Math.max(best, 1 - _wins[opponent * _numRanks + successor]);
+                }
+                wins += Dice.outcomeProbability(outcome) * best;
+            }
+            return wins;
+        }
+
+        /** The number of positions of one side. */
+        private final int _numRanks;
+        /** The one-sided index of every rank. */
+        private final int[] _indices;
+        /** The ranks reachable from every rank with every dice outcome, empty if none is. */
+        private final int[][][] _successors;
+        /** The probability of rolling dice every rank cannot move with. */
+        private final double[] _passProbabilities;
+        /** The pairs to solve, by layer. */
+        private final long[][] _layers;
+        /** The probability of the side to move winning, by its rank and the opponent's. */
+        private final double[] _wins;
+    }
+
+    /** The largest number of pieces per side that generate accepts, keeping tables in memory. */
+    static final int MAX_GENERATED_PIECES = 8;
+
+    /** The number of pieces per side of the standard file. */
+    static final int STANDARD_MAX_PIECES = 6;
+
+    /** The number of pairs solved by a single task. */
+    private static final int CHUNK_SIZE = 1024;
+
+    /** The layout of a file. */
+    private static final int FILE_MAGIC = 0x42454132;
+    private static final int HEADER_SIZE = 4 * Integer.BYTES;
+    /** The stored value of a probability of one. */
+    private static final double PROBABILITY_SCALE = 0xFFFF;
+
+    /** The largest number of pieces per side of a position I hold. */
+    private final int _maxPieces;
+    /** The rank of every one-sided position index. */
+    private final int[] _ranks;
+    /** The number of positions of one side. */
+    private final int _numRanks;
+    /** The mapped contents of my file. */
+    private final ByteBuffer _buffer;
+
+    /** The system property naming the standard file, and its default name. */
+    private static final String STANDARD_FILE_PROPERTY = "backgammon.bearoff2";
+    private static final String STANDARD_FILE_NAME = "bearoff2.db";
+
+    /** The standard database, or null if there is no standard file. */
+    private static volatile TwoSidedBearoffDatabase _standard;
+
+    /** True iff the standard file has been looked for. */
+    private static volatile boolean _standardLoaded;
+}
@@ -0,0 +1,76 @@
+import java.util.SplittableRandom;
+
+/**
+ * Random keys used to compute 64-bit Zobrist hashes of positions. The key of a position is the
+ * XOR of one key per non-empty board position (depending on its index and signed number of
+ * pieces), one key per non-zero escaped or captured counter, and the side to move key if black is
+ * to move. Changing a single count therefore only costs two XORs. The keys are generated from a
+ * fixed seed, so hashes are identical across runs and JVMs.
+ */
+public class Zobrist {
+
+    /** Returns the key for VAL pieces (negative indicating black) at board position INDEX. */
+    static long point(int index, int val) {
+        return POINTS[index][val + Structure.MAX_NUM_PIECES_PER_BOARD_POSITION];
+    }
+
+    /** Returns the key for NUMESCAPED escaped pieces of SIDE. */
+    static long escaped(Side side, int numEscaped) {
+        return ESCAPED[side.ordinal()][numEscaped];
+    }
+
+    /** Returns the key for NUMCAPTURED captured pieces of SIDE. */
+    static long captured(Side side, int numCaptured) {
+        return CAPTURED[side.ordinal()][numCaptured];
+    }
+
+    /** Returns the key contributed by SIDE being the active side. */
+    static long sideToMove(Side side) {
+        return side == Side.BLACK ? BLACK_TO_MOVE : 0;
+    }
+
+    /** Compute the key of BOARD from scratch. */
+    static long computeKey(Board board) {
+        long key = 0;
+        for (int i = 0; i < Structure.BOARD_SIZE; i++) {
+            key ^= point(i, board.get(BoardIndex.make(i)));
+        }
+        for (Side side : SIDES) {
+            key ^= escaped(side, board.numEscaped(side)) ^ captured(side, board.numCaptured(side));
+        }
+        return key;
+    }
+
+    /** Fill a table with random keys, leaving the column EMPTYCOLUMN zero. */
+    private static long[][] randomKeys(SplittableRandom random, int rows, int columns,
+                                       int emptyColumn) {
+        long[][] keys = new long[rows][columns];
+        for (long[] row : keys) {
+            for (int j = 0; j < columns; j++) {
+                row[j] = j == emptyColumn ? 0 : random.nextLong();
+            }
+        }
+        return keys;
+    }
+
+    /** The determined sides. */
+    private static final Side[] SIDES = { Side.WHITE, Side.BLACK };
+
+    /** The seed from which all keys are generated. */
+    private static final long SEED = 0x5EED_BAC6_A770_0001L;
+
+    private static final long[][] POINTS;
+    private static final long[][] ESCAPED;
+    private static final long[][] CAPTURED;
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        POINTS = randomKeys(random, Structure.BOARD_SIZE,
+                            2 * Structure.MAX_NUM_PIECES_PER_BOARD_POSITION + 1,
+                            Structure.MAX_NUM_PIECES_PER_BOARD_POSITION);
+        ESCAPED = randomKeys(random, Structure.NUM_COLORS, Structure.NUM_PIECES_PER_SIDE + 1, 0);
+        CAPTURED = randomKeys(random, Structure.NUM_COLORS, Structure.NUM_PIECES_PER_SIDE + 1, 0);
+        BLACK_TO_MOVE = random.nextLong();
+    }
+}
@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BearoffDatabaseTest {
+
+    @TempDir
+    static Path directory;
+
+    private static BearoffDatabase database;
+
+    @BeforeAll
+    static void generate() throws IOException {
+        Path file = directory.resolve("bearoff.db");
+        BearoffDatabase.generate(file, 4);
+        database = BearoffDatabase.open(file);
+    }
+
+    @Test
+    void singlePieces() {
+        assertEquals(4, database.maxPieces());
+        int nearest = BearoffDatabase.index(TestSetups.race(new int[] { 1 }, new int[] { 1 }),
+                                            Side.WHITE);
+        assertEquals(1, database.turnProbability(nearest, 1), 1e-4);
+        /* A single piece six points away escapes in one turn unless the dice sum to less than
+        six without a double of at least two: 1-1, 1-2, 1-3, 1-4 and 2-3. */
+        Board far = TestSetups.race(new int[] { 0, 0, 0, 0, 0, 1 }, new int[] { 1 });
+        int furthest = BearoffDatabase.index(far, Side.WHITE);
+        assertEquals(27.0 / 36, database.turnProbability(furthest, 1), 1e-4);
+        assertEquals(1, database.turnProbability(furthest, 1) + database.turnProbability(furthest, 2),
+                     1e-4);
+    }
+
+    @Test
+    void sidesAreIndexedAlike() {
+        Board board = TestSetups.race(new int[] { 2, 0, 1 }, new int[] { 2, 0, 1 });
+        assertEquals(BearoffDatabase.index(board, Side.WHITE), BearoffDatabase.index(board, Side.BLACK));
+        assertTrue(database.covers(board, Side.WHITE));
+        assertFalse(database.covers(TestSetups.race(new int[] { 5 }, new int[] { 1 }), Side.WHITE));
+        assertFalse(database.covers(new Board(), Side.WHITE));
+    }
+
+    @Test
+    void racesFavorTheSideToMove() {
+        Board board = TestSetups.race(new int[] { 1, 1 }, new int[] { 1, 1 });
+        double white = database.winProbability(board, Side.WHITE);
+        assertTrue(white > 0.5);
+        Board ahead = TestSetups.race(new int[] { 1 }, new int[] { 2, 2 });
+        assertEquals(1, database.winProbability(ahead, Side.WHITE), 1e-4);
+        Evaluator evaluator = new BearoffEvaluator(database, new PipCountEvaluator());
+        State state = State.fromExtendedSetup(boardSetup(board), 0, 0, Side.WHITE);
+        assertEquals(2 * white - 1, evaluator.evaluate(state, Side.WHITE), 1e-12);
+        assertEquals(1 - 2 * white, evaluator.evaluate(state, Side.BLACK), 1e-12);
+        State opening = new State(Side.WHITE, 3, 1);
+        assertEquals(new PipCountEvaluator().evaluate(opening, Side.WHITE),
+                     evaluator.evaluate(opening, Side.WHITE));
+    }
+
+    @Test
+    void standardDatabaseIsBuiltExplicitly() throws IOException {
+        String property = "backgammon.bearoff";
+        String twoSidedProperty = "backgammon.bearoff2";
+        String previous = System.getProperty(property);
+        String previousTwoSided = System.getProperty(twoSidedProperty);
+        System.setProperty(property, directory.resolve("standard.db").toString());
+        System.setProperty(twoSidedProperty, directory.resolve("standard2.db").toString());
+        BearoffDatabase.resetStandard();
+        TwoSidedBearoffDatabase.resetStandard();
+        try {
+            Evaluator fallback = new PipCountEvaluator();
+            assertNull(BearoffDatabase.standard());
+            assertSame(fallback, BearoffEvaluator.standard(fallback));
+            BearoffDatabase.generate(BearoffDatabase.standardFile(), 2);
+            BearoffDatabase.resetStandard();
+            assertNotNull(BearoffDatabase.standard());
+            assertInstanceOf(BearoffEvaluator.class, BearoffEvaluator.standard(fallback));
+            assertInstanceOf(BearoffEvaluator.class, Evaluator.standard());
+        } finally {
+            restoreProperty(property, previous);
+            restoreProperty(twoSidedProperty, previousTwoSided);
+            BearoffDatabase.resetStandard();
+            TwoSidedBearoffDatabase.resetStandard();
+        }
+    }
+
+    /** Set the system property NAME back to VALUE, or clear it if VALUE is null. */
+    private static void restoreProperty(String name, String value) {
+        if (value == null) {
+            System.clearProperty(name);
+        } else {
+            System.setProperty(name, value);
+        }
+    }
+
+    /** Returns the extended setup of BOARD. */
+    private static int[] boardSetup(Board board) {
+        return new PackedBoard(board).toExtendedSetup();
+    }
+}
@@ -1,6 +1,7 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 
@@ -186,6 +187,66 @@ class BoardTest {
         assertTrue(allPiecesEscaped.allEscaped(Side.BLACK));
     }
 
+    @Test
+    void pipCount() {
+        assertEquals(167, boardDefault.pipCount(Side.WHITE));
+        assertEquals(167, boardDefault.pipCount(Side.BLACK));
+        boardDefault.set(bi(0), 1);
+        boardDefault.moveToCaptured(bi(0));
+        boardDefault.decrement(bi(0));
+        /* One of the two pieces at index 0 (24 pips each) is gone, the other is captured. */
+        assertEquals(167 - 2 * 24 + 25, boardDefault.pipCount(Side.WHITE));
+    }
+
+    @Test
+    void madePointsAndBlots() {
+        assertEquals((1 << 0) | (1 << 11) | (1 << 16) | (1 << 18),
+                     boardDefault.madePointMask(Side.WHITE));
+        assertEquals(0, boardDefault.blotMask(Side.WHITE));
+        boardDefault.decrement(bi(0));
+        assertEquals(1 << 0, boardDefault.blotMask(Side.WHITE));
+        assertEquals(0, boardDefault.madePointMask(Side.WHITE) & 1);
+    }
+
+    @Test
+    void furthestBackIndex() {
+        assertEquals(0, boardDefault.furthestBackIndex(Side.WHITE));
+        assertEquals(23, boardDefault.furthestBackIndex(Side.BLACK));
+        Board allPiecesEscaped = Board.fromExtendedSetup(TestSetups.BOTH_WIN);
+        assertEquals(-1, allPiecesEscaped.furthestBackIndex(Side.WHITE));
+    }
+
+    @Test
+    void isLastPieceOnBoard() {
+        Board endZones = Board.fromExtendedSetup(TestSetups.FULL_END_ZONES);
+        assertTrue(endZones.isLastPieceOnBoard(bi(18), Side.WHITE));
+        assertFalse(endZones.isLastPieceOnBoard(bi(19), Side.WHITE));
+        assertTrue(endZones.isLastPieceOnBoard(bi(5), Side.BLACK));
+        assertFalse(endZones.isLastPieceOnBoard(bi(4), Side.BLACK));
+    }
+
+    @Test
+    void derivedCountsMatchRecomputation() {
+        for (int game = 0; game < 20; game++) {
+            State s = new State(Side.WHITE, 3, 1);
+            while (!s.gameOver()) {
+                if (s.getRemainingRolls().isEmpty() || s.getLegalMoves().isEmpty()) {
+                    s.roll();
+                }
+                s.makeMove(Utils.selectRandom(new ArrayList<>(s.getLegalMoves())));
+                Board board = s.getBoard();
+                Board recomputed = new PackedBoard(board).toBoard();
+                for (Side side : List.of(Side.WHITE, Side.BLACK)) {
+                    assertEquals(recomputed.pipCount(side), board.pipCount(side));
+                    assertEquals(recomputed.occupancyMask(side), board.occupancyMask(side));
+                    assertEquals(recomputed.madePointMask(side), board.madePointMask(side));
+                    assertEquals(recomputed.blotMask(side), board.blotMask(side));
+                    assertEquals(recomputed.numOutsideEndZone(side), board.numOutsideEndZone(side));
+                }
+            }
+        }
+    }
+
     @Test
     void errors() {
         /* Cannot capture non-single piece. */
@@ -32,6 +32,31 @@ class DiceTest {
         assertTrue(dice.pasch());
     }
 
+    @org.junit.jupiter.api.Test
+    void outcomesCoverAllRolls() {
+        double total = 0;
+        int[][] seen = new int[Dice.NUM_SIDES + 1][Dice.NUM_SIDES + 1];
+        for (int outcome = 0; outcome < Dice.NUM_OUTCOMES; outcome++) {
+            int first = Dice.outcomeFirst(outcome);
+            int second = Dice.outcomeSecond(outcome);
+            assertTrue(first <= second);
+            assertEquals(first == second ? 1.0 / 36 : 2.0 / 36, Dice.outcomeProbability(outcome));
+            seen[first][second] += 1;
+            total += Dice.outcomeProbability(outcome);
+        }
+        assertEquals(21, Dice.NUM_OUTCOMES);
+        assertEquals(1.0, total, 1e-12);
+        for (int first = 1; first <= Dice.NUM_SIDES; first++) {
+            for (int second = first; second <= Dice.NUM_SIDES; second++) {
+                assertEquals(1, seen[first][second]);
+                int outcome = Dice.outcome(second, first);
+                assertEquals(outcome, Dice.outcome(first, second));
+                assertEquals(first, Dice.outcomeFirst(outcome));
+                assertEquals(second, Dice.outcomeSecond(outcome));
+            }
+        }
+    }
+
     /** Returns true iff ROLL is a valid roll of a single die. */
     static boolean inRange(int roll) {
         return 1 <= roll && roll <= Dice.NUM_SIDES;
@@ -0,0 +1,199 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpectiminimaxPickerTest {
+
+    /** Play a game between WHITE and BLACK from STATE, checking that every move is legal. */
+    private static void playGame(State state, MovePickerInterface white, MovePickerInterface black) {
+        while (!state.gameOver()) {
+            if (!state.hasRemainingRolls() || state.getLegalMoves().isEmpty()) {
+                state.roll();
+            }
+            Set<Move> moves = state.getLegalMoves();
+            String before = state.toStringConcise();
+            Move move = (state.getCurrentSide().isWhite() ? white : black).selectMove(state, moves);
+            assertEquals(before, state.toStringConcise());
+            assertTrue(moves.contains(move), move + " is not legal in " + before);
+            state.makeMove(move);
+        }
+    }
+
+    @Test
+    void onePlyPicksBestEvaluatedPlay() {
+        Evaluator evaluator = new PipCountEvaluator();
+        ExpectiminimaxPicker picker = new ExpectiminimaxPicker(evaluator, 1);
+        PlayGenerator generator = new PlayGenerator();
+        for (int game = 0; game < 5; game++) {
+            State state = new State(Side.WHITE, 6, 4);
+            while (!state.gameOver()) {
+                if (!state.hasRemainingRolls() || state.getLegalMoves().isEmpty()) {
+                    state.roll();
+                }
+                Side side = state.getCurrentSide();
+                double best = Double.NEGATIVE_INFINITY;
+                int numPlays = generator.generate(state);
+                for (int play = 0; play < numPlays; play++) {
+                    generator.makePlay(state, play);
+                    best = Math.max(best, evaluator.evaluate(state, side));
+                    generator.unmakePlay(state, play);
+                }
+                while (state.getCurrentSide() == side && !state.gameOver()) {
+                    state.makeMove(picker.selectMove(state, state.getLegalMoves()));
+                }
+                assertEquals(best, evaluator.evaluate(state, side));
+            }
+        }
+    }
+
+    @Test
+    void twoPlyPlaysFullGame() {
+        State state = new State(Side.WHITE, 3, 1);
+        ExpectiminimaxPicker picker = new ExpectiminimaxPicker(new PipCountEvaluator(), 2);
+        playGame(state, picker, new AI.RandomChoice());
+        assertTrue(picker.numEvaluations() > 0);
+        assertNotEquals(Side.UNDETERMINED, state.winner());
+    }
+
+    @Test
+    void chanceNodesCoverAllOutcomes() {
+        /* Black has a single piece left, so every outcome leaves black exactly one play, and
+        every root play is evaluated once per outcome. */
+        State state = State.fromExtendedSetup(new int[] {
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 0, 0, 0, 0, 0, 0, 0, 0, 0, -1, 13, 14, 0, 0
+        }, 2, 1, Side.WHITE, new ArrayList<>(List.of(2, 1)));
+        int numPlays = new PlayGenerator().generate(state);
+        assertTrue(numPlays > 1);
+        ExpectiminimaxPicker picker = new ExpectiminimaxPicker(new PipCountEvaluator(), 2);
+        Move move = picker.selectMove(state, state.getLegalMoves());
+        assertTrue(state.getLegalMoves().contains(move));
+        assertEquals((long) numPlays * Dice.NUM_OUTCOMES, picker.numEvaluations());
+    }
+
+    @Test
+    void parallelSearchIsDeterministic() {
+        /* A small race, so that three plies are cheap enough to search repeatedly. */
+        int[] race = {
+                0, 0, 0, 0, 0, 0, 0, 0, 0, -1, 0, 0, 0, 1, 0, 0, 1, 0, 0, 0, 0, -1, 0, 0, 13, 13, 0, 0
+        };
+        Evaluator evaluator = new PipCountEvaluator();
+        ExpectiminimaxPicker sequential = new ExpectiminimaxPicker(evaluator, 3);
+        ExpectiminimaxPicker parallel = new ExpectiminimaxPicker(evaluator, 3, 4);
+        assertEquals(4, parallel.parallelism());
+        for (int[] dice : new int[][] { { 2, 1 }, { 3, 3 } }) {
+            List<Integer> rolls = dice[0] == dice[1] ? List.of(dice[0], dice[0], dice[0], dice[0])
+                    : List.of(dice[0], dice[1]);
+            State state = State.fromExtendedSetup(race, dice[0], dice[1], Side.WHITE,
+                                                  new ArrayList<>(rolls));
+            Move expected = sequential.selectMove(state, state.getLegalMoves());
+            Move actual = parallel.selectMove(state, state.getLegalMoves());
+            assertEquals(expected, actual);
+            assertEquals(sequential.lastValue(), parallel.lastValue());
+        }
+        assertEquals(sequential.numEvaluations(), parallel.numEvaluations());
+    }
+
+    @Test
+    void pruningKeepsResults() {
+        int[] race = {
+                0, 0, 0, 0, 0, 0, 0, 0, 0, -1, 0, 0, 0, 1, 0, 0, 1, 0, 0, 0, 0, -1, 0, 0, 13, 13, 0, 0
+        };
+        Evaluator evaluator = new PipCountEvaluator();
+        for (int plies = 2; plies <= 3; plies++) {
+            ExpectiminimaxPicker full = new ExpectiminimaxPicker(evaluator, plies);
+            ExpectiminimaxPicker pruned = new ExpectiminimaxPicker(evaluator, plies);
+            pruned.setPruning(true);
+            for (int[] dice : new int[][] { { 2, 1 }, { 5, 3 }, { 4, 4 } }) {
+                List<Integer> rolls = dice[0] == dice[1]
+                        ? List.of(dice[0], dice[0], dice[0], dice[0]) : List.of(dice[0], dice[1]);
+                State state = State.fromExtendedSetup(race, dice[0], dice[1], Side.BLACK,
+                                                      new ArrayList<>(rolls));
+                assertEquals(full.selectMove(state, state.getLegalMoves()),
+                             pruned.selectMove(state, state.getLegalMoves()));
+                assertEquals(full.lastValue(), pruned.lastValue(), 1e-12);
+            }
+            assertTrue(pruned.numCutoffs() > 0);
+            assertTrue(pruned.numEvaluations() < full.numEvaluations());
+        }
+        State opening = new State(Side.WHITE, 6, 2);
+        ExpectiminimaxPicker full = new ExpectiminimaxPicker(evaluator, 2);
+        ExpectiminimaxPicker pruned = new ExpectiminimaxPicker(evaluator, 2);
+        pruned.setPruning(true);
+        assertEquals(full.selectMove(opening, opening.getLegalMoves()),
+                     pruned.selectMove(opening, opening.getLegalMoves()));
+        assertEquals(full.lastValue(), pruned.lastValue(), 1e-12);
+        assertTrue(pruned.numNodes() < full.numNodes());
+    }
+
+    @Test
+    void deadlineCutsDeepSearchShort() {
+        for (int parallelism : new int[] { 1, 3 }) {
+            ExpectiminimaxPicker picker =
+                    new ExpectiminimaxPicker(new PipCountEvaluator(), 6, parallelism);
+            TimeBudget budget = new TimeBudget(20, 60_000);
+            picker.setTimeBudget(budget);
+            State state = new State(Side.WHITE, 6, 2);
+            String before = state.toStringConcise();
+            Move move = picker.selectMove(state, state.getLegalMoves());
+            assertEquals(before, state.toStringConcise());
+            assertTrue(state.getLegalMoves().contains(move));
+            SearchReport report = picker.lastReport();
+            assertTrue(report.timedOut());
+            assertTrue(report.depth() >= 1 && report.depth() < 6, report.toString());
+            assertTrue(report.nodes() > 0);
+            /* Well within a millisecond in practice; the slack only guards against a slow
+            machine. */
+            assertTrue(report.elapsedNanos() < 40_000_000L, report.toString());
+            assertEquals(60_000_000_000L - report.elapsedNanos(), budget.remainingNanos());
+            /* The rest of the turn is answered from the plan, without searching again. */
+            state.makeMove(move);
+            if (state.getCurrentSide() == Side.WHITE) {
+                picker.selectMove(state, state.getLegalMoves());
+                assertSame(report, picker.lastReport());
+            }
+        }
+    }
+
+    @Test
+    void generousBudgetSearchesFullDepth() {
+        Evaluator evaluator = new PipCountEvaluator();
+        ExpectiminimaxPicker fixed = new ExpectiminimaxPicker(evaluator, 2);
+        State state = new State(Side.BLACK, 5, 3);
+        Move expected = fixed.selectMove(state, state.getLegalMoves());
+        assertEquals(2, fixed.lastReport().depth());
+        for (int parallelism : new int[] { 1, 3 }) {
+            /* Root plays are searched best first, so the parallel search must map its results
+            back to the plays. */
+            ExpectiminimaxPicker timed = new ExpectiminimaxPicker(evaluator, 3, parallelism);
+            timed.setTimeBudget(new TimeBudget(60_000, 60_000 * TimeBudget.MOVES_TO_PLAN));
+            ExpectiminimaxPicker fixedThree = new ExpectiminimaxPicker(evaluator, 3);
+            assertEquals(fixedThree.selectMove(state, state.getLegalMoves()),
+                         timed.selectMove(state, state.getLegalMoves()));
+            assertEquals(fixedThree.lastValue(), timed.lastValue(), 1e-12);
+            assertEquals(3, timed.lastReport().depth());
+            assertFalse(timed.lastReport().timedOut());
+        }
+        ExpectiminimaxPicker timed = new ExpectiminimaxPicker(evaluator, 2);
+        timed.setTimeBudget(new TimeBudget(60_000, 60_000 * TimeBudget.MOVES_TO_PLAN));
+        assertEquals(expected, timed.selectMove(state, state.getLegalMoves()));
+        assertEquals(fixed.lastValue(), timed.lastValue(), 1e-12);
+    }
+
+    @Test
+    void matchTimeIsShared() {
+        TimeBudget budget = new TimeBudget(1_000, 2_000);
+        assertEquals(2_000_000_000L / TimeBudget.MOVES_TO_PLAN, budget.deadline(0));
+        budget.charge(2_500_000_000L);
+        assertEquals(0, budget.deadline(0));
+        assertThrows(BackgammonError.class, () -> new TimeBudget(0, 1));
+    }
+
+    @Test
+    void needsAtLeastOnePly() {
+        assertThrows(BackgammonError.class, () -> new ExpectiminimaxPicker(new PipCountEvaluator(), 0));
+    }
+}
@@ -20,4 +20,18 @@ class GameTest {
     @Test
     void gameOver() {
     }
-}
\ No newline at end of file
+
+    @Test
+    void playPickersChooseWholePlays() {
+        ExpectiminimaxPicker picker = new ExpectiminimaxPicker(new HeuristicEvaluator(), 1);
+        MovePickerInterface moveByMove = moves -> {
+            throw new AssertionError("Game asked for a single move.");
+        };
+        Game game = new Game(picker, new AI.RandomChoice());
+        while (!game.gameOver()) {
+            game.turn();
+        }
+        assertTrue(picker.lastReport().depth() >= 1);
+        assertThrows(AssertionError.class, () -> new Game(moveByMove, moveByMove).turn());
+    }
+}
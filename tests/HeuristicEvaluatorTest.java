@@ -0,0 +1,49 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeuristicEvaluatorTest {
+
+    @Test
+    void valuesAreAntisymmetricAndBounded() {
+        Evaluator evaluator = new HeuristicEvaluator();
+        for (int game = 0; game < 10; game++) {
+            State state = new State(Side.WHITE, 4, 1);
+            while (!state.gameOver()) {
+                if (!state.hasRemainingRolls() || state.getLegalMoves().isEmpty()) {
+                    state.roll();
+                }
+                state.makeMove(Utils.selectRandom(new ArrayList<>(state.getLegalMoves())));
+                double white = evaluator.evaluate(state, Side.WHITE);
+                assertEquals(-white, evaluator.evaluate(state, Side.BLACK), 1e-12);
+                if (!state.gameOver()) {
+                    assertTrue(Evaluator.LOSS < white && white < Evaluator.WIN);
+                }
+            }
+            assertEquals(Evaluator.WIN, evaluator.evaluate(state, state.winner()));
+        }
+    }
+
+    @Test
+    void prefersStructureOverBlots() {
+        /* The same pips, with two white pieces either making a point or left as blots. */
+        int[] made = {
+                2, 0, 0, 0, 0, -5, 0, -3, 0, 0, 0, 5, -5, 0, 0, 0, 3, 0, 3, 0, 2, 0, 0, -2, 0, 0, 0, 0
+        };
+        int[] blots = {
+                2, 0, 0, 0, 0, -5, 0, -3, 0, 0, 0, 5, -5, 0, 0, 0, 3, 0, 3, 1, 0, 1, 0, -2, 0, 0, 0, 0
+        };
+        Evaluator evaluator = new HeuristicEvaluator();
+        assertTrue(evaluator.evaluate(State.fromExtendedSetup(made, 0, 0, Side.BLACK), Side.WHITE)
+                > evaluator.evaluate(State.fromExtendedSetup(blots, 0, 0, Side.BLACK), Side.WHITE));
+    }
+
+    @Test
+    void longestRun() {
+        assertEquals(0, HeuristicEvaluator.longestRun(0));
+        assertEquals(1, HeuristicEvaluator.longestRun(0b1010));
+        assertEquals(3, HeuristicEvaluator.longestRun(0b1110_0110));
+    }
+}
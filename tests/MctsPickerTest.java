@@ -0,0 +1,83 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MctsPickerTest {
+
+    /** A small race, with two pieces left on either side. */
+    private static final int[] RACE = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, -1, 0, 0, 0, 1, 0, 0, 1, 0, 0, 0, 0, -1, 0, 0, 13, 13, 0, 0
+    };
+
+    @Test
+    void playsLegalMovesToTheEnd() {
+        State state = new State(Side.WHITE, 5, 2);
+        MctsPicker white = new MctsPicker(50, 20000, 1.0, 3);
+        MovePickerInterface black = new AI.RandomChoice();
+        while (!state.gameOver()) {
+            if (!state.hasRemainingRolls() || state.getLegalMoves().isEmpty()) {
+                state.roll();
+            }
+            Set<Move> moves = state.getLegalMoves();
+            String before = state.toStringConcise();
+            Move move = (state.getCurrentSide().isWhite() ? white : black).selectMove(state, moves);
+            assertEquals(before, state.toStringConcise());
+            assertTrue(moves.contains(move), move + " is not legal in " + before);
+            state.makeMove(move);
+        }
+        assertTrue(white.treeSize() <= 20000);
+    }
+
+    @Test
+    void sameSeedSameMove() {
+        State state = State.fromExtendedSetup(RACE, 6, 1, Side.WHITE, new ArrayList<>(List.of(6, 1)));
+        Move first = new MctsPicker(300, 100000, 1.0, 11).selectMove(state, state.getLegalMoves());
+        Move second = new MctsPicker(300, 100000, 1.0, 11).selectMove(state, state.getLegalMoves());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void treeIsReusedForTheNextTurn() {
+        /* The same picker plays both sides, so the next decision is two plies below the last. */
+        State state = State.fromExtendedSetup(RACE, 4, 2, Side.WHITE, new ArrayList<>(List.of(4, 2)));
+        MctsPicker picker = new MctsPicker(2000, 100000, 1.0, 5);
+        while (state.getCurrentSide() == Side.WHITE) {
+            state.makeMove(picker.selectMove(state, state.getLegalMoves()));
+        }
+        assertEquals(0, picker.lastReusedNodes());
+        state.setDice(3, 1);
+        state.makeMove(picker.selectMove(state, state.getLegalMoves()));
+        assertTrue(picker.lastReusedNodes() > 1);
+        assertTrue(picker.lastReusedVisits() > 0);
+    }
+
+    @Test
+    void smallBudgetStillPicksAPlay() {
+        /* Play at random until a roll has more plays than the tree has room for. */
+        PlayGenerator plays = new PlayGenerator();
+        State state = new State(Side.WHITE, 1, 1);
+        int numPlays;
+        while ((numPlays = plays.generate(state)) <= 21) {
+            plays.makePlay(state, Utils.randomIntegerInclusive(0, numPlays - 1));
+            if (state.gameOver()) {
+                state = new State(Side.WHITE, 1, 1);
+            } else {
+                state.roll();
+            }
+        }
+        MctsPicker picker = new MctsPicker(10, 22, 1.0, 1);
+        Move move = picker.selectMove(state, state.getLegalMoves());
+        assertTrue(state.getLegalMoves().contains(move));
+        assertEquals(1 + numPlays, picker.treeSize());
+    }
+
+    @Test
+    void needsRoomForATree() {
+        assertThrows(BackgammonError.class, () -> new MctsPicker(100, 1, 1.0, 0));
+        assertThrows(BackgammonError.class, () -> new MctsPicker(0, 1000, 1.0, 0));
+    }
+}
@@ -0,0 +1,48 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoveListTest {
+
+    @Test
+    void packedMovesMatchMoves() {
+        for (int roll = 1; roll <= Dice.NUM_SIDES; roll++) {
+            for (Side side : new Side[] { Side.WHITE, Side.BLACK }) {
+                Move reentry = ReentryMove.move(roll, side);
+                assertSame(reentry, PackedMove.toMove(reentry.toPacked()));
+                BoardIndex escapeIndex = side.isWhite() ? BoardIndex.make(Structure.BOARD_SIZE - 1)
+                        : BoardIndex.make(0);
+                Move escape = EscapeMove.move(escapeIndex, roll, side);
+                assertSame(escape, PackedMove.toMove(escape.toPacked()));
+            }
+            for (int start = 0; start + roll < Structure.BOARD_SIZE; start++) {
+                Move move = BoardMove.move(BoardIndex.make(start), BoardIndex.make(start + roll),
+                                           roll);
+                int packed = move.toPacked();
+                assertSame(move, PackedMove.toMove(packed));
+                assertEquals(start, PackedMove.start(packed));
+                assertEquals(start + roll, PackedMove.target(packed));
+                assertEquals(roll, PackedMove.roll(packed));
+            }
+        }
+        assertSame(PassMove.PASS, PackedMove.toMove(PassMove.PASS.toPacked()));
+    }
+
+    @Test
+    void addGrowsAndClearKeepsNothing() {
+        MoveList list = new MoveList();
+        for (int i = 0; i < 100; i++) {
+            list.add(PackedMove.board(0, 1 + i % 6, 1 + i % 6));
+        }
+        assertEquals(100, list.size());
+        assertTrue(list.contains(PackedMove.board(0, 3, 3)));
+        assertFalse(list.contains(PackedMove.PASS));
+        MoveList copy = new MoveList();
+        copy.copyFrom(list);
+        assertEquals(list.size(), copy.size());
+        assertEquals(list.get(99), copy.get(99));
+        list.clear();
+        assertTrue(list.isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(0));
+    }
+}
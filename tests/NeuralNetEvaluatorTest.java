@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NeuralNetEvaluatorTest {
+
+    @Test
+    void encodesTheStartingPosition() {
+        assertEquals(198, NeuralNetEvaluator.NUM_INPUTS);
+        float[] white = new float[NeuralNetEvaluator.NUM_INPUTS];
+        float[] black = new float[NeuralNetEvaluator.NUM_INPUTS];
+        Board board = new Board();
+        NeuralNetEvaluator.encode(board, Side.WHITE, true, white, 0);
+        NeuralNetEvaluator.encode(board, Side.BLACK, false, black, 0);
+        /* White's two pieces at index 0, and black's five at index 5 seen by white. */
+        assertArrayEquals(new float[] { 1, 1, 0, 0 }, Arrays.copyOfRange(white, 0, 4));
+        assertArrayEquals(new float[] { 1, 1, 1, 1 }, Arrays.copyOfRange(white, 96 + 20, 96 + 24));
+        /* The starting position is symmetric, so only the side on move differs. */
+        assertArrayEquals(Arrays.copyOf(white, 196), Arrays.copyOf(black, 196));
+        assertEquals(1, white[196]);
+        assertEquals(1, black[197]);
+    }
+
+    @Test
+    void batchesMatchSingleEvaluations() {
+        NeuralNetEvaluator evaluator = new NeuralNetEvaluator(20, 1);
+        PlayGenerator plays = new PlayGenerator();
+        State state = new State(Side.WHITE, 6, 5);
+        for (int turn = 0; turn < 30 && !state.gameOver(); turn++) {
+            Side side = state.getCurrentSide();
+            int numPlays = plays.generate(state);
+            double[] values = new double[numPlays];
+            evaluator.evaluatePlays(state, plays, values);
+            double[] opponentValues = new double[numPlays];
+            evaluator.evaluatePlays(state, plays, side.opponent(), opponentValues);
+            for (int play = 0; play < numPlays; play++) {
+                plays.makePlay(state, play);
+                assertEquals(evaluator.evaluate(state, side), values[play], 1e-6);
+                assertEquals(evaluator.evaluate(state, side.opponent()), opponentValues[play],
+                             1e-6);
+                plays.unmakePlay(state, play);
+            }
+            plays.makePlay(state, Utils.randomIntegerInclusive(0, numPlays - 1));
+            if (!state.gameOver()) {
+                state.roll();
+            }
+        }
+    }
+
+    @Test
+    void finishedGamesHaveTheirOutcome() {
+        State state = new State(Side.WHITE, 2, 1);
+        while (!state.gameOver()) {
+            if (!state.hasRemainingRolls() || state.getLegalMoves().isEmpty()) {
+                state.roll();
+            }
+            state.makeMove(Utils.selectRandom(new ArrayList<>(state.getLegalMoves())));
+        }
+        NeuralNetEvaluator evaluator = new NeuralNetEvaluator(5, 2);
+        float[] probabilities = new float[NeuralNetEvaluator.NUM_OUTPUTS];
+        evaluator.probabilities(state, state.winner(), probabilities);
+        assertEquals(1, probabilities[NeuralNetEvaluator.WIN]);
+        assertEquals(0, probabilities[NeuralNetEvaluator.LOSE_GAMMON]);
+        assertEquals(Evaluator.LOSS, evaluator.evaluate(state, state.winner().opponent()));
+    }
+
+    @Test
+    void weightsMustMatchTheShape() {
+        assertEquals(20 * 199 + 5 * 21, NeuralNetEvaluator.numWeights(20));
+        assertThrows(BackgammonError.class, () -> new NeuralNetEvaluator(20, new float[10]));
+    }
+}
@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpeningBookTest {
+
+    @Test
+    void booksTheFirstTurn(@TempDir Path directory) throws IOException {
+        ExpectiminimaxPicker picker = new ExpectiminimaxPicker(new PipCountEvaluator(), 1);
+        OpeningBook book = OpeningBook.build(picker, new Rollout(1, 9), 2, 1);
+        assertEquals(2 * Dice.NUM_OUTCOMES, book.size());
+
+        Path file = directory.resolve("opening.book");
+        book.write(file);
+        OpeningBook read = OpeningBook.read(file);
+        assertEquals(book.size(), read.size());
+
+        State state = new State(Side.BLACK, 6, 4);
+        int entry = read.lookup(state);
+        assertTrue(entry >= 0);
+        assertEquals(book.equity(book.lookup(state)), read.equity(entry));
+        assertTrue(-1 <= read.equity(entry) && read.equity(entry) <= 1);
+        /* The book holds the play its picker chose. */
+        State copy = state.snapshot().toState();
+        for (int i = 0; i < read.playLength(entry); i++) {
+            Move move = picker.selectMove(copy, copy.getLegalMoves());
+            assertEquals(move, PackedMove.toMove(read.packedMove(entry, i)));
+            copy.makeMove(move);
+        }
+        assertEquals(Side.WHITE, copy.getCurrentSide());
+        assertEquals(-1, read.lookup(copy));
+    }
+
+    @Test
+    void pickerLeavesTheBook() {
+        OpeningBook book = OpeningBook.build(new AI.RandomChoice(), new Rollout(1, 2), 1, 1);
+        BookPicker picker = new BookPicker(book, new AI.RandomChoice());
+        State state = new State(Side.WHITE, 3, 1);
+        while (!state.gameOver()) {
+            if (!state.hasRemainingRolls() || state.getLegalMoves().isEmpty()) {
+                state.roll();
+            }
+            Set<Move> moves = state.getLegalMoves();
+            Move move = picker.selectMove(state, moves);
+            assertTrue(moves.contains(move));
+            state.makeMove(move);
+        }
+        assertEquals(2, picker.numBookMoves());
+    }
+}
@@ -0,0 +1,123 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackedBoardTest {
+    /** A packed board that will be initialized to the default board positions, before every
+     * test case is run.
+     */
+    private static PackedBoard boardDefault;
+
+    /** The board positions occupied by white in the default starting configuration. */
+    private static final List<Integer> DEFAULT_WHITE_BOARD_POSITIONS = List.of(0, 11, 16, 18);
+
+    /** The board positions occupied by black in the default starting configuration. */
+    private static final List<Integer> DEFAULT_BLACK_BOARD_POSITIONS = List.of(5, 7, 12, 23);
+
+    @BeforeEach
+    void setUp() {
+        boardDefault = new PackedBoard();
+    }
+
+    /** A convenient shorthand for creating BoardIndex objects. */
+    private BoardIndex bi(int i) {
+        return BoardIndex.make(i);
+    }
+
+    @Test
+    void matchesBoard() {
+        Board board = new Board();
+        for (int i = 0; i < Structure.BOARD_SIZE; i++) {
+            assertEquals(board.get(bi(i)), boardDefault.get(bi(i)), "Failed at index: " + i);
+            assertEquals(board.full(bi(i)), boardDefault.full(bi(i)), "Failed at index: " + i);
+            assertEquals(board.single(bi(i)), boardDefault.single(bi(i)), "Failed at index: " + i);
+        }
+        assertEquals(Structure.NUM_PIECES_PER_SIDE, boardDefault.numPieces(Side.WHITE));
+        assertEquals(Structure.NUM_PIECES_PER_SIDE, boardDefault.numPieces(Side.BLACK));
+    }
+
+    @Test
+    void extendedSetupRoundTrip() {
+        int[][] setups = { TestSetups.WHITE_WIN, TestSetups.TRICKY_ENTRY_WHITE,
+                           TestSetups.TRICKY_ESCAPE_BLACK, TestSetups.FULL_END_ZONES,
+                           TestSetups.ESCAPE };
+        for (int[] setup : setups) {
+            PackedBoard packed = PackedBoard.fromExtendedSetup(setup);
+            assertArrayEquals(setup, packed.toExtendedSetup());
+            assertEquals(packed, new PackedBoard(packed.toBoard()));
+        }
+    }
+
+    @Test
+    void occupiedBy() {
+        for (int i = 0; i < Structure.BOARD_SIZE; i++) {
+            boolean white = DEFAULT_WHITE_BOARD_POSITIONS.contains(i);
+            boolean black = DEFAULT_BLACK_BOARD_POSITIONS.contains(i);
+            assertEquals(white, boardDefault.occupiedBy(Side.WHITE, bi(i)), "Failed at index: " + i);
+            assertEquals(black, boardDefault.occupiedBy(Side.BLACK, bi(i)), "Failed at index: " + i);
+            assertEquals(white, ((boardDefault.occupancyMask(Side.WHITE) >>> i) & 1) == 1);
+            assertEquals(black, ((boardDefault.occupancyMask(Side.BLACK) >>> i) & 1) == 1);
+        }
+    }
+
+    @Test
+    void incrementAndDecrement() {
+        boardDefault.increment(bi(1), Side.BLACK);
+        assertEquals(-1, boardDefault.get(bi(1)));
+        boardDefault.decrement(bi(1));
+        assertTrue(boardDefault.empty(bi(1)));
+        assertEquals(new PackedBoard(), boardDefault);
+        boardDefault.decrement(bi(0));
+        assertEquals(1, boardDefault.get(bi(0)));
+    }
+
+    @Test
+    void moveToCaptured() {
+        assertThrows(BackgammonError.class, () -> boardDefault.moveToCaptured(bi(0)));
+        boardDefault.set(bi(0), 1);
+        boardDefault.moveToCaptured(bi(0));
+        assertEquals(1, boardDefault.numCaptured(Side.WHITE));
+        assertEquals(0, boardDefault.numCaptured(Side.BLACK));
+    }
+
+    @Test
+    void allPiecesInEndZone() {
+        assertFalse(boardDefault.allPiecesInEndZone(Side.WHITE));
+        assertFalse(boardDefault.allPiecesInEndZone(Side.BLACK));
+        PackedBoard endZones = PackedBoard.fromExtendedSetup(TestSetups.FULL_END_ZONES);
+        assertTrue(endZones.allPiecesInEndZone(Side.WHITE));
+        assertTrue(endZones.allPiecesInEndZone(Side.BLACK));
+    }
+
+    @Test
+    void isLastPieceOnBoard() {
+        PackedBoard endZones = PackedBoard.fromExtendedSetup(TestSetups.FULL_END_ZONES);
+        assertTrue(endZones.isLastPieceOnBoard(bi(18), Side.WHITE));
+        assertFalse(endZones.isLastPieceOnBoard(bi(19), Side.WHITE));
+        assertTrue(endZones.isLastPieceOnBoard(bi(5), Side.BLACK));
+        assertFalse(endZones.isLastPieceOnBoard(bi(4), Side.BLACK));
+    }
+
+    @Test
+    void positionCanBeMovedToBy() {
+        Board board = new Board();
+        for (int i = 0; i < Structure.BOARD_SIZE; i++) {
+            for (Side side : List.of(Side.WHITE, Side.BLACK)) {
+                assertEquals(board.positionCanBeMovedToBy(bi(i), side),
+                             boardDefault.positionCanBeMovedToBy(bi(i), side),
+                             "Failed at index: " + i);
+            }
+        }
+    }
+
+    @Test
+    void errors() {
+        assertThrows(BackgammonError.class, () -> boardDefault.decrement(bi(1)));
+        assertThrows(BackgammonError.class, () -> boardDefault.increment(bi(5), Side.BLACK));
+        assertThrows(BackgammonError.class,
+                     () -> boardDefault.setNumEscaped(Side.WHITE, Structure.NUM_PIECES_PER_SIDE + 1));
+    }
+}
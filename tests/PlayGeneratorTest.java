@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayGeneratorTest {
+    private PlayGenerator generator;
+
+    @BeforeEach
+    void setUp() {
+        generator = new PlayGenerator();
+    }
+
+    /**
+     * White has a single piece left at index 0 and black blocks index 7. White can play either a
+     * 5 or a 2, but never both.
+     */
+    private static final int[] ONE_ROLL_PLAYABLE = {
+            1, 0, 0, 0, 0, 0, 0, -2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 14, 13, 0, 0
+    };
+
+    /** Ensure that all plays are complete, distinct, and can be made and undone. */
+    private void checkPlays(State state, int expectedCheckerMoves) {
+        String before = state.toStringConcise();
+        Side side = state.getCurrentSide();
+        Set<PackedBoard> reached = new HashSet<>();
+        for (int play = 0; play < generator.numPlays(); play++) {
+            int checkerMoves = 0;
+            for (int i = 0; i < generator.playLength(play); i++) {
+                checkerMoves += generator.move(play, i) instanceof PassMove ? 0 : 1;
+            }
+            assertEquals(expectedCheckerMoves, checkerMoves, generator.toString(play));
+            generator.makePlay(state, play);
+            assertEquals(side.opponent(), state.getCurrentSide());
+            PackedBoard board = new PackedBoard(state.getBoard());
+            assertEquals(generator.resultingBoard(play), board);
+            assertTrue(reached.add(board), "Duplicate play: " + generator.toString(play));
+            generator.unmakePlay(state, play);
+            assertEquals(before, state.toStringConcise());
+        }
+    }
+
+    @Test
+    void openingRoll() {
+        State state = new State(Side.WHITE, 3, 1);
+        assertTrue(generator.generate(state) > 1);
+        checkPlays(state, 2);
+    }
+
+    @Test
+    void paschIsDeduplicated() {
+        State state = new State(new Board(), new Dice(1, 1), Side.BLACK,
+                                new ArrayList<>(List.of(1, 1, 1, 1)));
+        int numPlays = generator.generate(state);
+        assertTrue(numPlays > 1);
+        checkPlays(state, 4);
+    }
+
+    @Test
+    void largerRollMustBeUsed() {
+        State state = State.fromExtendedSetup(ONE_ROLL_PLAYABLE, 5, 2, Side.WHITE,
+                                              new ArrayList<>(List.of(5, 2)));
+        assertEquals(1, generator.generate(state));
+        assertEquals(BoardMove.move(BoardIndex.make(0), BoardIndex.make(5), 5),
+                     generator.move(0, 0));
+        assertEquals(PassMove.PASS, generator.move(0, 1));
+        checkPlays(state, 1);
+    }
+
+    @Test
+    void noLegalMoves() {
+        State state = State.fromExtendedSetup(TestSetups.TRICKY_ESCAPE_BLACK, 1, 2, Side.BLACK,
+                                              new ArrayList<>(List.of(1, 2)));
+        assertEquals(1, generator.generate(state));
+        assertEquals(1, generator.playLength(0));
+        assertEquals(PassMove.PASS, generator.move(0, 0));
+    }
+
+    @Test
+    void requiresRemainingRolls() {
+        State state = new State();
+        assertThrows(BackgammonError.class, () -> generator.generate(state));
+    }
+}
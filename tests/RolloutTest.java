@@ -0,0 +1,75 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RolloutTest {
+
+    /** White has one piece left, in its end zone. Black is far from home. */
+    private static final int[] WHITE_WINS = {
+            0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, -5, -5, -5, 0, 0, 0, 0, 0, 0, 0, 1, 14, 0, 0, 0
+    };
+
+    @Test
+    void resultsCombine() {
+        RolloutResult result = new RolloutResult(2, 0, 2).plus(new RolloutResult(2, 2, 2));
+        assertEquals(4, result.numGames());
+        assertEquals(0.5, result.mean());
+        assertEquals(0.5, result.standardError(), 1e-12);
+        assertEquals(Double.POSITIVE_INFINITY, RolloutResult.EMPTY.standardError());
+    }
+
+    @Test
+    void rolloutsAreDeterministic() {
+        State state = new State(Side.WHITE, 1, 1);
+        RolloutResult sequential = new Rollout(1, 42).equity(state, 100);
+        RolloutResult parallel = new Rollout(3, 42).equity(state, 100);
+        assertEquals(100, sequential.numGames());
+        assertEquals(sequential.mean(), parallel.mean());
+        assertEquals(sequential.standardError(), parallel.standardError());
+        assertTrue(-1 <= sequential.mean() && sequential.mean() <= 1);
+        assertNotEquals(sequential.mean(), new Rollout(1, 43).equity(state, 100).mean());
+    }
+
+    @Test
+    void certainWinHasNoError() {
+        State state = State.fromExtendedSetup(WHITE_WINS, 0, 0, Side.WHITE);
+        RolloutResult result = new Rollout(2, 7).equity(state, 50);
+        assertEquals(Evaluator.WIN, result.mean());
+        assertEquals(0, result.standardError());
+    }
+
+    @Test
+    void pickerStopsEarlyOnClearlyBestPlay() {
+        /* Black's last piece is about to escape. Only by hitting it with the 1, sending it back
+        to the start, does white have a chance. */
+        int[] hit = {
+                0, 1, -1, 0, 0, 0, 0, 0, 0, 0, 0, 0, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 12, 14, 0, 0
+        };
+        State state = State.fromExtendedSetup(hit, 1, 2, Side.WHITE, new ArrayList<>(List.of(1, 2)));
+        PlayGenerator plays = new PlayGenerator();
+        int numPlays = plays.generate(state);
+        RolloutPicker picker = new RolloutPicker(new Rollout(2, 1), 2000, 100, 3);
+        int picked = picker.pickPlay(state, plays);
+        RolloutResult[] results = picker.lastResults();
+        assertEquals(numPlays, results.length);
+        long games = 0;
+        int numMisses = 0;
+        for (int play = 0; play < numPlays; play++) {
+            games += results[play].numGames();
+            plays.makePlay(state, play);
+            boolean hits = state.getBoard().numCaptured(Side.BLACK) == 1;
+            plays.unmakePlay(state, play);
+            if (play == picked) {
+                assertTrue(hits);
+            } else if (!hits) {
+                numMisses += 1;
+                assertTrue(results[play].numGames() < results[picked].numGames());
+            }
+        }
+        assertTrue(numMisses > 0);
+        assertTrue(games < 2000L * numPlays);
+    }
+}
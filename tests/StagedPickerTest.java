@@ -0,0 +1,86 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StagedPickerTest {
+
+    @Test
+    void unfilteredStagesMatchFullSearch() {
+        Evaluator evaluator = new PipCountEvaluator();
+        ExpectiminimaxPicker search = new ExpectiminimaxPicker(evaluator, 2);
+        StagedPicker staged = new StagedPicker(evaluator);
+        staged.addStage((state, side) -> search.chanceValue(state, side, 1), Integer.MAX_VALUE,
+                        Double.POSITIVE_INFINITY);
+        ExpectiminimaxPicker full = new ExpectiminimaxPicker(evaluator, 2);
+        State state = new State(Side.WHITE, 5, 2);
+        assertEquals(full.selectMove(state, state.getLegalMoves()),
+                     staged.selectMove(state, state.getLegalMoves()));
+        assertEquals(full.lastValue(), staged.lastValue(), 1e-12);
+        int numPlays = new PlayGenerator().generate(state);
+        assertArrayEquals(new int[] { numPlays, numPlays }, staged.lastCandidates());
+        assertArrayEquals(new int[] { 0, 0 }, staged.lastPruned());
+    }
+
+    @Test
+    void stagesPruneCandidates() {
+        Evaluator evaluator = new PipCountEvaluator();
+        ExpectiminimaxPicker search = new ExpectiminimaxPicker(evaluator, 2);
+        StagedPicker staged = new StagedPicker(new HeuristicEvaluator());
+        staged.addStage(evaluator, 8, 0.5);
+        staged.addStage((state, side) -> search.chanceValue(state, side, 1), 3, 0.5);
+        assertEquals(3, staged.numStages());
+        State state = new State(Side.BLACK, 6, 4);
+        int numPlays = new PlayGenerator().generate(state);
+        assertTrue(numPlays > 8);
+        Move move = staged.selectMove(state, state.getLegalMoves());
+        assertTrue(state.getLegalMoves().contains(move));
+        int[] candidates = staged.lastCandidates();
+        int[] pruned = staged.lastPruned();
+        assertEquals(numPlays, candidates[0]);
+        assertTrue(candidates[1] <= 8 && candidates[2] <= 3 && candidates[2] >= 1);
+        for (int s = 1; s < candidates.length; s++) {
+            assertEquals(candidates[s - 1] - candidates[s], pruned[s]);
+        }
+    }
+
+    @Test
+    void chanceValueSearchesUpToAllPlies() {
+        State state = new State(Side.WHITE, 4, 2);
+        state.makeMove(state.getLegalMoves().iterator().next());
+        state.makeMove(state.getLegalMoves().iterator().next());
+        assertEquals(Side.BLACK, state.getCurrentSide());
+        int first = state.first();
+        int second = state.second();
+        int numRemainingRolls = state.numRemainingRolls();
+        long key = state.zobristKey();
+        Evaluator evaluator = new PipCountEvaluator();
+        double expected = new ExpectiminimaxPicker(evaluator, 2).chanceValue(state, Side.WHITE, 1);
+        for (int parallelism : new int[] { 1, 2 }) {
+            for (boolean pruning : new boolean[] { false, true }) {
+                ExpectiminimaxPicker search = new ExpectiminimaxPicker(evaluator, 1, parallelism);
+                search.setPruning(pruning);
+                assertEquals(expected, search.chanceValue(state, Side.WHITE, 1), 1e-12);
+                assertEquals(evaluator.evaluate(state, Side.WHITE),
+                             search.chanceValue(state, Side.WHITE, 0));
+                assertThrows(BackgammonError.class,
+                             () -> search.chanceValue(state, Side.WHITE, 2));
+                assertEquals(first, state.first());
+                assertEquals(second, state.second());
+                assertEquals(numRemainingRolls, state.numRemainingRolls());
+                assertEquals(key, state.zobristKey());
+            }
+        }
+    }
+
+    @Test
+    void zeroWindowKeepsTheBest() {
+        StagedPicker staged = new StagedPicker(new PipCountEvaluator());
+        staged.addStage(new PipCountEvaluator(), 5, 0);
+        ExpectiminimaxPicker onePly = new ExpectiminimaxPicker(new PipCountEvaluator(), 1);
+        State state = new State(Side.WHITE, 3, 1);
+        assertEquals(onePly.selectMove(state, state.getLegalMoves()),
+                     staged.selectMove(state, state.getLegalMoves()));
+        assertEquals(onePly.lastValue(), staged.lastValue());
+        assertThrows(BackgammonError.class, () -> staged.addStage(new PipCountEvaluator(), 0, 1));
+    }
+}
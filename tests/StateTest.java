@@ -1,6 +1,7 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -141,6 +142,130 @@ class StateTest {
         assertEquals(expected, s.toStringConcise());
     }
 
+    @Test
+    void unmakeMoveRestoresCapture() {
+        int[] captureSetup = {
+                0, 0, 1, 0, 0, -4, 0, 0, 0, 5, 5, 4, 0, 0, -5, -5, -1, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                0, 0
+        };
+        State s = State.fromExtendedSetup(captureSetup, 3, 1, Side.BLACK,
+                                          new ArrayList<>(List.of(3, 1)));
+        String before = s.toStringConcise();
+        Set<Move> legalMovesBefore = new HashSet<>(s.getLegalMoves());
+        s.makeMove(BoardMove.move(bi(5), bi(2), 3));
+        assertEquals(1, s.getBoard().numCaptured(Side.WHITE));
+        s.unmakeMove();
+        assertEquals(before, s.toStringConcise());
+        assertEquals(legalMovesBefore, s.getLegalMoves());
+        assertEquals(0, s.getBoard().numCaptured(Side.WHITE));
+        assertThrows(BackgammonError.class, s::unmakeMove);
+    }
+
+    @Test
+    void unmakeMoveRestoresWholeGame() {
+        for (int game = 0; game < 20; game++) {
+            State s = new State(Side.WHITE, 3, 1);
+            List<String> history = new ArrayList<>();
+            List<Boolean> gameOverHistory = new ArrayList<>();
+            while (!s.gameOver()) {
+                if (s.getRemainingRolls().isEmpty() || s.getLegalMoves().isEmpty()) {
+                    s.roll();
+                }
+                history.add(s.toStringConcise());
+                gameOverHistory.add(s.gameOver());
+                s.makeMove(Utils.selectRandom(new ArrayList<>(s.getLegalMoves())));
+            }
+            Side winner = s.winner();
+            assertNotEquals(Side.UNDETERMINED, winner);
+            for (int i = history.size() - 1; i >= 0; i--) {
+                s.unmakeMove();
+                assertEquals(history.get(i), s.toStringConcise(), "Failed at move: " + i);
+                assertEquals(gameOverHistory.get(i), s.gameOver());
+            }
+            assertEquals(Side.UNDETERMINED, s.winner());
+            assertEquals(0, s.numUndoableMoves());
+        }
+    }
+
+    @Test
+    void snapshotsAreIndependent() {
+        State s = new State(Side.WHITE, 3, 1);
+        s.makeMove(Utils.selectRandom(new ArrayList<>(s.getLegalMoves())));
+        PositionSnapshot snapshot = s.snapshot();
+        State copy = snapshot.toState();
+        assertEquals(s, copy);
+        assertEquals(s.zobristKey(), copy.zobristKey());
+        assertEquals(s.getRemainingRolls(), copy.getRemainingRolls());
+        assertEquals(s.getLegalMoves(), copy.getLegalMoves());
+        assertEquals(0, copy.numUndoableMoves());
+
+        copy.makeMove(Utils.selectRandom(new ArrayList<>(copy.getLegalMoves())));
+        assertNotEquals(s, copy);
+        assertEquals(snapshot, s.snapshot());
+        assertEquals(snapshot, PositionSnapshot.of(snapshot.toState()));
+    }
+
+    @Test
+    void zobristKeyIsIncremental() {
+        for (int game = 0; game < 20; game++) {
+            State s = new State(Side.WHITE, 3, 1);
+            long initialKey = s.zobristKey();
+            while (!s.gameOver()) {
+                if (s.getRemainingRolls().isEmpty() || s.getLegalMoves().isEmpty()) {
+                    s.roll();
+                }
+                s.makeMove(Utils.selectRandom(new ArrayList<>(s.getLegalMoves())));
+                Board board = s.getBoard();
+                assertEquals(Zobrist.computeKey(board), board.zobristKey());
+                assertEquals(board.zobristKey() ^ Zobrist.sideToMove(s.getCurrentSide()),
+                             s.zobristKey());
+                assertEquals(new PackedBoard(board).zobristKey(), board.zobristKey());
+            }
+            while (s.numUndoableMoves() > 0) {
+                s.unmakeMove();
+            }
+            assertEquals(initialKey, s.zobristKey());
+            assertEquals(new State(Side.WHITE, 3, 1), s);
+        }
+    }
+
+    @Test
+    void legalMovesAreLazy() {
+        State s = new State(Side.WHITE, 3, 1);
+        List<Integer> streamed = new ArrayList<>();
+        s.forEachLegalMove(move -> {
+            streamed.add(move);
+            return true;
+        });
+        MoveList legalMoves = s.legalMoveList();
+        assertEquals(legalMoves.size(), streamed.size());
+        for (int i = 0; i < legalMoves.size(); i++) {
+            assertTrue(streamed.contains(legalMoves.get(i)));
+        }
+        /* Streaming stops as soon as the visitor asks it to. */
+        int[] numVisited = { 0 };
+        new State(Side.WHITE, 3, 1).forEachLegalMove(move -> ++numVisited[0] < 2);
+        assertEquals(2, numVisited[0]);
+    }
+
+    @Test
+    void randomPlayoutWithoutLegalMoveSet() {
+        AI.RandomChoice picker = new AI.RandomChoice();
+        State s = new State(Side.WHITE, 3, 1);
+        while (!s.gameOver()) {
+            if (s.getRemainingRolls().isEmpty()) {
+                s.roll();
+            }
+            int move = picker.selectMove(s);
+            s.makeMove(move);
+            if (PackedMove.kind(move) == PackedMove.PASS_KIND) {
+                s.roll();
+            }
+        }
+        assertNotEquals(Side.UNDETERMINED, s.winner());
+        assertThrows(BackgammonError.class, () -> s.makeMove(PackedMove.PASS));
+    }
+
     @Test
     void occupiedByActivePlayer() {
     }
@@ -171,6 +296,21 @@ class StateTest {
 
     @Test
     void getRemainingRolls() {
+        State s = new State(Side.WHITE, 5, 2);
+        assertEquals(List.of(5, 2), s.getRemainingRolls());
+        assertEquals(0b100100, s.remainingRollMask());
+        s.makeMove(BoardMove.move(bi(0), bi(2), 2));
+        assertEquals(List.of(5), s.getRemainingRolls());
+        s.unmakeMove();
+        assertEquals(List.of(5, 2), s.getRemainingRolls());
+
+        s = new State(new Board(), new Dice(3, 3), Side.WHITE, List.of(3, 3, 3, 3));
+        assertEquals(4, s.numRemaining(3));
+        s.makeMove(BoardMove.move(bi(0), bi(3), 3));
+        s.makeMove(BoardMove.move(bi(0), bi(3), 3));
+        assertEquals(List.of(3, 3), s.getRemainingRolls());
+        assertEquals(2, s.numRemainingRolls());
+        assertEquals(Side.WHITE, s.getCurrentSide());
     }
 
     @Test
@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TdTrainerTest {
+
+    @Test
+    void trainingChangesTheWeights(@TempDir Path directory) throws IOException {
+        NeuralNetEvaluator network = new NeuralNetEvaluator(8, 1);
+        float[] initial = network.weights().clone();
+        TdTrainer trainer = new TdTrainer(network, 0.1, 0.7, 2, 3);
+        Path checkpoint = directory.resolve("net.ckpt");
+        trainer.train(6, 4, checkpoint);
+        assertEquals(6, trainer.gamesPlayed());
+        assertTrue(Files.exists(checkpoint));
+        boolean changed = false;
+        for (int i = 0; i < initial.length; i++) {
+            assertTrue(Float.isFinite(network.weights()[i]));
+            changed |= initial[i] != network.weights()[i];
+        }
+        assertTrue(changed);
+    }
+
+    @Test
+    void resumesFromACheckpoint(@TempDir Path directory) throws IOException {
+        Path checkpoint = directory.resolve("net.ckpt");
+        TdTrainer trainer = new TdTrainer(new NeuralNetEvaluator(4, 2), 0.1, 0.7, 1, 5);
+        trainer.train(3, 100, checkpoint);
+        TdTrainer resumed = TdTrainer.resume(checkpoint, 0.1, 0.7, 1, 5);
+        assertEquals(3, resumed.gamesPlayed());
+        assertArrayEquals(trainer.network().weights(), resumed.network().weights());
+        /* Continuing either way plays the same games from the same weights. */
+        trainer.train(2, 100, null);
+        resumed.train(2, 100, null);
+        assertEquals(5, resumed.gamesPlayed());
+        assertArrayEquals(trainer.network().weights(), resumed.network().weights());
+    }
+
+    @Test
+    void needsAPositiveCheckpointInterval(@TempDir Path directory) {
+        TdTrainer trainer = new TdTrainer(new NeuralNetEvaluator(4, 2), 0.1, 0.7, 1, 5);
+        Path checkpoint = directory.resolve("net.ckpt");
+        assertThrows(BackgammonError.class, () -> trainer.train(1, 0, checkpoint));
+        assertThrows(BackgammonError.class, () -> trainer.train(1, -5, null));
+        assertThrows(BackgammonError.class, () -> trainer.train(-1, 10, null));
+        assertEquals(0, trainer.gamesPlayed());
+    }
+}
@@ -2,6 +2,25 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class TestSetups {
+    /**
+     * Returns a race with white's pieces as in WHITE and black's as in BLACK, by their distance
+     * from escaping, and all other pieces escaped.
+     */
+    public static Board race(int[] white, int[] black) {
+        int[] setup = new int[Structure.BOARD_SIZE + 4];
+        setup[Structure.WHITE_ESCAPE_INDEX] = Structure.NUM_PIECES_PER_SIDE;
+        setup[Structure.BLACK_ESCAPE_INDEX] = Structure.NUM_PIECES_PER_SIDE;
+        for (int distance = 1; distance <= white.length; distance++) {
+            setup[Structure.BOARD_SIZE - distance] = white[distance - 1];
+            setup[Structure.WHITE_ESCAPE_INDEX] -= white[distance - 1];
+        }
+        for (int distance = 1; distance <= black.length; distance++) {
+            setup[distance - 1] = -black[distance - 1];
+            setup[Structure.BLACK_ESCAPE_INDEX] -= black[distance - 1];
+        }
+        return Board.fromExtendedSetup(setup);
+    }
+
     /** An integer array filled with all zeros with a size identical to Structure.BOARD_SIZE + 4. */
     public static final int[] EMPTY_POSITIONS = new int[Structure.BOARD_SIZE + 4];
 
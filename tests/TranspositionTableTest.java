@@ -0,0 +1,101 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranspositionTableTest {
+
+    @Test
+    void storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        assertEquals((1 << 20) / 16, table.capacity());
+        long key = 0x123456789ABCDEF0L;
+        assertTrue(Double.isNaN(table.probe(key, 0)));
+        table.store(key, 2, 0.25);
+        assertEquals(0.25, table.probe(key, 2));
+        assertEquals(0.25, table.probe(key, 1));
+        assertTrue(Double.isNaN(table.probe(key, 3)));
+        assertTrue(Double.isNaN(table.probe(key ^ (1L << 40), 0)));
+        /* A shallower result of the same search does not replace a deeper one. */
+        table.store(key, 1, -0.5);
+        assertEquals(0.25, table.probe(key, 1));
+        table.newSearch();
+        table.store(key, 1, -0.5);
+        assertEquals(-0.5, table.probe(key, 1));
+        assertEquals(4, table.hits());
+        assertEquals(3, table.misses());
+        table.clear();
+        assertTrue(Double.isNaN(table.probe(key, 0)));
+        assertEquals(0, table.hits());
+    }
+
+    @Test
+    void fullBucketsReplaceOldAndShallowEntries() {
+        TranspositionTable table = new TranspositionTable(1);
+        int numBuckets = table.capacity() / TranspositionTable.BUCKET_SIZE;
+        /* Keys sharing the low bits all fall into the same bucket. */
+        for (int i = 0; i < TranspositionTable.BUCKET_SIZE; i++) {
+            table.store((long) (i + 1) << 32, i + 1, i);
+        }
+        table.store((long) (TranspositionTable.BUCKET_SIZE + 1) << 32, 9, 9);
+        assertEquals(1, table.collisions());
+        assertTrue(Double.isNaN(table.probe(1L << 32, 0)), "The shallowest entry is replaced");
+        assertEquals(9, table.probe((long) (TranspositionTable.BUCKET_SIZE + 1) << 32, 9));
+        table.newSearch();
+        table.newSearch();
+        table.store(numBuckets, 1, 1);
+        table.store((long) 42 << 32, 1, 1);
+        assertEquals(1, table.collisions());
+    }
+
+    @Test
+    void concurrentWritersNeverCorruptValues() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(1);
+        AtomicBoolean corrupted = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long seed = t;
+            threads.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    /* Few distinct keys, so that threads keep overwriting each other. */
+                    long key = random.nextLong(1024) * 0x9E3779B97F4A7C15L;
+                    double value = table.probe(key, 0);
+                    if (!Double.isNaN(value) && value != expectedValue(key)) {
+                        corrupted.set(true);
+                    }
+                    table.store(key, random.nextInt(4), expectedValue(key));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(corrupted.get());
+        assertTrue(table.hits() > 0);
+    }
+
+    /** The value stored for KEY by concurrentWritersNeverCorruptValues. */
+    private static double expectedValue(long key) {
+        return (double) (key >>> 11) / (1L << 53);
+    }
+
+    @Test
+    void searchWithTableSelectsSamePlay() {
+        State state = new State(Side.WHITE, 4, 2);
+        ExpectiminimaxPicker plain = new ExpectiminimaxPicker(new PipCountEvaluator(), 2);
+        ExpectiminimaxPicker cached = new ExpectiminimaxPicker(new PipCountEvaluator(), 2);
+        TranspositionTable table = new TranspositionTable(4);
+        cached.setTranspositionTable(table);
+        assertEquals(plain.selectMove(state, state.getLegalMoves()),
+                     cached.selectMove(state, state.getLegalMoves()));
+        assertEquals(plain.lastValue(), cached.lastValue());
+        assertTrue(table.stores() > 0);
+        assertTrue(cached.numEvaluations() <= plain.numEvaluations());
+    }
+}
@@ -0,0 +1,79 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TwoSidedBearoffDatabaseTest {
+
+    @Test
+    void exactRaces(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("two.db");
+        TwoSidedBearoffDatabase.generate(file, 3, 1);
+        TwoSidedBearoffDatabase database = TwoSidedBearoffDatabase.open(file);
+        assertEquals(3, database.maxPieces());
+        Board board = TestSetups.race(new int[] { 0, 0, 0, 0, 0, 1 }, new int[] { 1 });
+        assertTrue(board.noContact());
+        assertTrue(database.covers(board));
+        /* White wins at once unless it rolls 1-1, 1-2, 1-3, 1-4 or 2-3. */
+        assertEquals(27.0 / 36, database.winProbability(board, Side.WHITE), 1e-4);
+        assertEquals(1, database.winProbability(board, Side.BLACK), 1e-4);
+        assertFalse(database.covers(TestSetups.race(new int[] { 4 }, new int[] { 1 })));
+        assertFalse(database.covers(new Board()));
+
+        Path oneSided = directory.resolve("one.db");
+        BearoffDatabase.generate(oneSided, 3);
+        Board close = TestSetups.race(new int[] { 1, 0, 1, 0, 1 }, new int[] { 0, 2, 0, 1 });
+        assertEquals(BearoffDatabase.open(oneSided).winProbability(close, Side.BLACK),
+                     database.winProbability(close, Side.BLACK), 0.02);
+    }
+
+    @Test
+    void parallelGenerationMatches(@TempDir Path directory) throws IOException {
+        Path sequential = directory.resolve("sequential.db");
+        Path parallel = directory.resolve("parallel.db");
+        TwoSidedBearoffDatabase.generate(sequential, 3, 1);
+        TwoSidedBearoffDatabase.generate(parallel, 3, 3);
+        assertArrayEquals(Files.readAllBytes(sequential), Files.readAllBytes(parallel));
+    }
+
+    @Test
+    void statesLookUpTheStandardDatabase(@TempDir Path directory) throws IOException {
+        String property = "backgammon.bearoff2";
+        String previous = System.getProperty(property);
+        System.setProperty(property, directory.resolve("standard.db").toString());
+        TwoSidedBearoffDatabase.resetStandard();
+        try {
+            Board board = TestSetups.race(new int[] { 0, 0, 0, 0, 0, 1 }, new int[] { 1 });
+            int[] setup = new PackedBoard(board).toExtendedSetup();
+            State white = State.fromExtendedSetup(setup, 0, 0, Side.WHITE);
+            assertNull(TwoSidedBearoffDatabase.standard());
+            assertTrue(Double.isNaN(white.exactWinProbability()));
+            TwoSidedBearoffDatabase.generate(TwoSidedBearoffDatabase.standardFile(), 2, 1);
+            /* A missing file is remembered until the cache is reset. */
+            assertNull(TwoSidedBearoffDatabase.standard());
+            TwoSidedBearoffDatabase.resetStandard();
+            assertNotNull(TwoSidedBearoffDatabase.standard());
+            assertEquals(27.0 / 36, white.exactWinProbability(), 1e-4);
+            assertEquals(1, State.fromExtendedSetup(setup, 0, 0, Side.BLACK)
+                                 .exactWinProbability(), 1e-4);
+            assertTrue(Double.isNaN(new State(Side.WHITE, 3, 1).exactWinProbability()));
+        } finally {
+            if (previous == null) {
+                System.clearProperty(property);
+            } else {
+                System.setProperty(property, previous);
+            }
+            TwoSidedBearoffDatabase.resetStandard();
+        }
+    }
+
+    @Test
+    void contactEndsOncePiecesHavePassed() {
+        assertFalse(new Board().noContact());
+        assertTrue(TestSetups.race(new int[] { 1 }, new int[] { 1 }).noContact());
+    }
+}